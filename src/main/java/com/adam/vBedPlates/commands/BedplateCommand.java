@@ -3,9 +3,15 @@ package com.adam.vBedPlates.commands;
 import net.minecraft.command.CommandBase;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
+import net.minecraft.util.BlockPos;
 import net.minecraft.util.ChatComponentText;
 import net.minecraft.util.EnumChatFormatting;
 
+import com.adam.vBedPlates.events.BedScanner;
+import com.adam.vBedPlates.events.BedplateRender;
+import com.adam.vBedPlates.events.TrackingSnapshot;
+import com.adam.vBedPlates.util.AllocationProbe;
+
 public class BedplateCommand extends CommandBase {
 
 	// Config class to hold settings
@@ -15,6 +21,17 @@ public class BedplateCommand extends CommandBase {
 		public static boolean showBedOutlines = true;
 		public static boolean enableChatMessages = true;
 		public static boolean fullObsidianNotifs = true;
+		public static boolean asyncScanning = false;
+		public static boolean parallelSweep = true;
+		public static boolean mapAnchoredScan = true; // Scan the whole map region once instead of following the player
+		public static boolean symmetryPrediction = true; // Probe mirrored/rotated bed positions before a full sweep
+		public static int scanBudgetMicros = 500; // Per-tick scanning budget on the client thread
+		public static int maxStaleTicks = 200; // Longest a region may go without being re-verified
+		public static int outlineRenderDistance = 128; // Blocks; beds further away are not drawn
+		public static int billboardRenderDistance = 128;
+		public static int billboardIconDistance = 40; // Full item icons closer than this
+		public static int billboardSwatchDistance = 80; // Colour swatches closer than this, team chips beyond
+		public static int obsidianRenderDistance = 50;
 	}
 
 	@Override
@@ -24,7 +41,7 @@ public class BedplateCommand extends CommandBase {
 
 	@Override
 	public String getCommandUsage(ICommandSender sender) {
-		return "/bedplate <toggle|help> [setting]";
+		return "/bedplate <toggle|budget|distance|allocs|help> [setting]";
 	}
 
 	@Override
@@ -44,16 +61,41 @@ public class BedplateCommand extends CommandBase {
 		switch (subCommand) {
 			case "toggle":
 				if (args.length < 2) {
-					sendMessage(sender, "§cUsage: /bedplate toggle <bedplates|obsidian|bedesp|fullobby|messages>");
+					sendMessage(sender, "§cUsage: /bedplate toggle <bedplates|obsidian|bedesp|fullobby|messages|async|parallel|anchored|symmetry>");
 					return;
 				}
 				handleToggle(sender, args[1].toLowerCase());
 				break;
 
+			case "budget":
+				if (args.length < 2) {
+					sendMessage(sender, "§cUsage: /bedplate budget <microseconds per tick>");
+					return;
+				}
+				handleBudget(sender, args[1]);
+				break;
+
+			case "distance":
+				if (args.length < 3) {
+					sendMessage(sender, "§cUsage: /bedplate distance <outlines|billboards|icons|swatches|obsidian> <blocks>");
+					return;
+				}
+				handleDistance(sender, args[1].toLowerCase(), args[2]);
+				break;
+
+			case "allocs":
+				handleAllocs(sender, args.length < 2 ? "200" : args[1]);
+				break;
+
 			case "status":
 				sendStatus(sender);
 				break;
 
+			case "defenses":
+			case "defences":
+				sendDefenses(sender);
+				break;
+
 			case "help":
 			default:
 				sendHelp(sender);
@@ -103,28 +145,176 @@ public class BedplateCommand extends CommandBase {
 				sendMessage(sender, "§5Full Obsidian Placed/Broken Notifications: " + getStatusText(Config.fullObsidianNotifs));
 				break;
 
+			case "async":
+			case "asyncscan":
+				Config.asyncScanning = !Config.asyncScanning;
+				sendMessage(sender, "§aAsync Scanning: " + getStatusText(Config.asyncScanning));
+				System.out.println("[Bedplate] Async Scanning toggled to: " + Config.asyncScanning);
+				break;
+
+			case "parallel":
+			case "parallelsweep":
+				Config.parallelSweep = !Config.parallelSweep;
+				sendMessage(sender, "§aParallel Sweep: " + getStatusText(Config.parallelSweep));
+				System.out.println("[Bedplate] Parallel Sweep toggled to: " + Config.parallelSweep);
+				break;
+
+			case "anchored":
+			case "mapanchored":
+				Config.mapAnchoredScan = !Config.mapAnchoredScan;
+				sendMessage(sender, "§aMap-Anchored Scan: " + getStatusText(Config.mapAnchoredScan));
+				System.out.println("[Bedplate] Map-Anchored Scan toggled to: " + Config.mapAnchoredScan);
+				break;
+
+			case "symmetry":
+			case "predict":
+				Config.symmetryPrediction = !Config.symmetryPrediction;
+				sendMessage(sender, "§aSymmetry Prediction: " + getStatusText(Config.symmetryPrediction));
+				System.out.println("[Bedplate] Symmetry Prediction toggled to: " + Config.symmetryPrediction);
+				break;
+
 			default:
 				sendMessage(sender, "§cUnknown setting: " + setting);
-				sendMessage(sender, "§7Available: billboards, obsidian, outlines, chat");
+				sendMessage(sender, "§7Available: billboards, obsidian, outlines, chat, fullobby, async, parallel, anchored, symmetry");
 				break;
 		}
 	}
 
+	private void handleBudget(ICommandSender sender, String value) {
+		try {
+			int micros = Integer.parseInt(value);
+			if (micros < 50 || micros > 20000) {
+				sendMessage(sender, "§cBudget must be between 50 and 20000 microseconds");
+				return;
+			}
+			Config.scanBudgetMicros = micros;
+			sendMessage(sender, "§aScan Budget: §f" + micros + "µs/tick");
+			System.out.println("[Bedplate] Scan budget set to: " + micros);
+		} catch (NumberFormatException e) {
+			sendMessage(sender, "§cNot a number: " + value);
+		}
+	}
+
+	private void handleDistance(ICommandSender sender, String feature, String value) {
+		int blocks;
+		try {
+			blocks = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			sendMessage(sender, "§cNot a number: " + value);
+			return;
+		}
+		if (blocks < 8 || blocks > 512) {
+			sendMessage(sender, "§cDistance must be between 8 and 512 blocks");
+			return;
+		}
+
+		switch (feature) {
+			case "outlines":
+			case "outline":
+			case "bedesp":
+				Config.outlineRenderDistance = blocks;
+				sendMessage(sender, "§aBed Outline Distance: §f" + blocks);
+				break;
+			case "billboards":
+			case "billboard":
+			case "bedplates":
+				Config.billboardRenderDistance = blocks;
+				sendMessage(sender, "§aBillboard Distance: §f" + blocks);
+				break;
+			case "icons":
+				Config.billboardIconDistance = blocks;
+				sendMessage(sender, "§aBillboard Icon Distance: §f" + blocks);
+				break;
+			case "swatches":
+				Config.billboardSwatchDistance = blocks;
+				sendMessage(sender, "§aBillboard Swatch Distance: §f" + blocks);
+				break;
+			case "obsidian":
+			case "obby":
+			case "oesp":
+				Config.obsidianRenderDistance = blocks;
+				sendMessage(sender, "§aObsidian ESP Distance: §f" + blocks);
+				break;
+			default:
+				sendMessage(sender, "§cUnknown feature: " + feature);
+				return;
+		}
+		System.out.println("[Bedplate] " + feature + " render distance set to: " + blocks);
+	}
+
+	private void handleAllocs(ICommandSender sender, String value) {
+		if (!AllocationProbe.isSupported()) {
+			sendMessage(sender, "§cThis JVM cannot report per-thread allocation");
+			return;
+		}
+
+		try {
+			int frames = Integer.parseInt(value);
+			if (frames < 1 || frames > 10000) {
+				sendMessage(sender, "§cFrames must be between 1 and 10000");
+				return;
+			}
+			BedplateRender.FRAME_PROBE.start(frames);
+			sendMessage(sender, "§aMeasuring render allocation over §f" + frames + "§a frames...");
+			System.out.println("[Bedplate] Measuring render allocation over " + frames + " frames");
+		} catch (NumberFormatException e) {
+			sendMessage(sender, "§cNot a number: " + value);
+		}
+	}
+
 	private void sendStatus(ICommandSender sender) {
 		sendMessage(sender, "§7=§f=§c= §4vBedplate Modules §7=§f=§c=");
 		sendMessage(sender, "§aBedplates: " + getStatusText(Config.showBillboards));
 		sendMessage(sender, "§aObbyESP: " + getStatusText(Config.showObsidianESP));
 		sendMessage(sender, "§aBedESP: " + getStatusText(Config.showBedOutlines));
 		sendMessage(sender, "§aMessages: " + getStatusText(Config.enableChatMessages));
+		sendMessage(sender, "§aAsync Scanning: " + getStatusText(Config.asyncScanning));
+		sendMessage(sender, "§aParallel Sweep: " + getStatusText(Config.parallelSweep));
+		sendMessage(sender, "§aMap-Anchored Scan: " + getStatusText(Config.mapAnchoredScan));
+		sendMessage(sender, "§aSymmetry Prediction: " + getStatusText(Config.symmetryPrediction));
+		sendMessage(sender, "§aScan Budget: §f" + Config.scanBudgetMicros + "µs/tick");
+		sendMessage(sender, "§aRender Distance: §f" + Config.outlineRenderDistance + "§7/§f" +
+				Config.billboardRenderDistance + "§7/§f" + Config.obsidianRenderDistance + " §7(outlines/billboards/obsidian)");
+		sendMessage(sender, "§aBillboard Detail: §ficons §7to §f" + Config.billboardIconDistance +
+				"§7, swatches to §f" + Config.billboardSwatchDistance);
+	}
+
+	private void sendDefenses(ICommandSender sender) {
+		TrackingSnapshot state = BedScanner.getSnapshot();
+		if (state.beds.isEmpty()) {
+			sendMessage(sender, "§7No beds tracked");
+			return;
+		}
+
+		for (TrackingSnapshot.Bed bed : state.beds) {
+			sendMessage(sender, bed.team.colorCode + bed.team.displayName + " §7at §f" +
+					bed.footPos.getX() + " " + bed.footPos.getY() + " " + bed.footPos.getZ() + "§7: §f" + bed.defenseSummary);
+
+			if (bed.breachVersion < 0) continue;
+			if (bed.breachCost < 0) {
+				sendMessage(sender, "§7  No way in");
+			} else if (bed.breachEntry == null) {
+				sendMessage(sender, "§7  Open to the air");
+			} else {
+				BlockPos entry = bed.breachEntry;
+				sendMessage(sender, String.format("§7  Weakest path: §f%.1fs §7from §f%d %d %d",
+						bed.breachCost / 20.0F, entry.getX(), entry.getY(), entry.getZ()));
+			}
+		}
 	}
 
 	private void sendHelp(ICommandSender sender) {
 		sendMessage(sender, "§7=§f=§c= §4vBedplate Commands §7=§f=§c=");
 		sendMessage(sender, "§e/bedplate toggle <setting> §7- Toggle a feature");
+		sendMessage(sender, "§e/bedplate budget <µs> §7- Set the per-tick scan budget");
+		sendMessage(sender, "§e/bedplate distance <feature> <blocks> §7- Set how far outlines, billboards or obsidian are drawn");
+		sendMessage(sender, "§e/bedplate distance <icons|swatches> <blocks> §7- Set where billboards switch to swatches and team chips");
 		sendMessage(sender, "§e/bedplate status §7- Show all settings");
+		sendMessage(sender, "§e/bedplate defenses §7- List tracked beds and their defense layers");
+		sendMessage(sender, "§e/bedplate allocs [frames] §7- Measure how much each render frame allocates");
 		sendMessage(sender, "§e/bedplate help §7- Show this help");
 		sendMessage(sender, "");
-		sendMessage(sender, "§7Settings: §fbillboards, obsidian, outlines, chat");
+		sendMessage(sender, "§7Settings: §fbillboards, obsidian, outlines, chat, fullobby, async, parallel, anchored, symmetry");
 	}
 
 	private String getStatusText(boolean enabled) {
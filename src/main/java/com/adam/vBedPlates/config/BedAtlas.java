@@ -0,0 +1,146 @@
+package com.adam.vBedPlates.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.BlockPos;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers where the beds of each map are, so later games on the same map
+ * only have to verify a handful of positions instead of sweeping for them.
+ *
+ * Entries are keyed by layout name (reskins share their base map's entry)
+ * and stored next to the map cache.
+ */
+public class BedAtlas {
+
+	private static final String ATLAS_FILE = "config/vBedPlates/bed_atlas.json";
+
+	private static BedAtlas instance;
+	private final Map<String, List<BedEntry>> atlas = new HashMap<>();
+	private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+	private boolean isLoaded = false;
+	private boolean isDirty = false;
+
+	private BedAtlas() {}
+
+	public static BedAtlas getInstance() {
+		if (instance == null) {
+			instance = new BedAtlas();
+		}
+		return instance;
+	}
+
+	/**
+	 * Gets the known beds for a map, or an empty list if it was never learned
+	 */
+	public List<BedEntry> getBeds(MapConfig config) {
+		load();
+		List<BedEntry> beds = atlas.get(config.getLayoutName());
+		return beds != null ? beds : new ArrayList<>();
+	}
+
+	/**
+	 * Records the complete bed layout of a map, one bed per team, replacing
+	 * anything stored before. Saved on the next flush.
+	 */
+	public void learn(MapConfig config, List<BedEntry> beds) {
+		load();
+		atlas.put(config.getLayoutName(), new ArrayList<>(beds));
+		isDirty = true;
+	}
+
+	/**
+	 * Forgets a map's beds, e.g. after verification showed the layout changed
+	 */
+	public void forget(MapConfig config) {
+		load();
+		if (atlas.remove(config.getLayoutName()) != null) {
+			isDirty = true;
+		}
+	}
+
+	/**
+	 * Writes the atlas to disk if anything changed since the last flush
+	 */
+	public void flush() {
+		if (!isDirty) return;
+
+		try {
+			File atlasFile = new File(Minecraft.getMinecraft().mcDataDir, ATLAS_FILE);
+			atlasFile.getParentFile().mkdirs();
+
+			try (FileWriter writer = new FileWriter(atlasFile)) {
+				gson.toJson(atlas, writer);
+			}
+
+			isDirty = false;
+			System.out.println("[vBedPlates] Saved bed atlas (" + atlas.size() + " maps)");
+		} catch (Exception e) {
+			System.err.println("[vBedPlates] Error saving bed atlas: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Loads the atlas from disk the first time it is needed
+	 */
+	private void load() {
+		if (isLoaded) return;
+		isLoaded = true;
+
+		File atlasFile = new File(Minecraft.getMinecraft().mcDataDir, ATLAS_FILE);
+		if (!atlasFile.exists()) return;
+
+		try (FileReader reader = new FileReader(atlasFile)) {
+			Type mapType = new TypeToken<Map<String, List<BedEntry>>>(){}.getType();
+			Map<String, List<BedEntry>> loaded = gson.fromJson(reader, mapType);
+
+			if (loaded != null) {
+				atlas.putAll(loaded);
+				System.out.println("[vBedPlates] Loaded bed atlas (" + atlas.size() + " maps)");
+			}
+		} catch (Exception e) {
+			System.err.println("[vBedPlates] Error loading bed atlas: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * A learned bed: foot and head coordinates, plus the facing (bed metadata & 3)
+	 */
+	public static class BedEntry {
+		public int footX, footY, footZ;
+		public int headX, headY, headZ;
+		public int facing;
+
+		public BedEntry(BlockPos footPos, BlockPos headPos) {
+			footX = footPos.getX();
+			footY = footPos.getY();
+			footZ = footPos.getZ();
+			headX = headPos.getX();
+			headY = headPos.getY();
+			headZ = headPos.getZ();
+
+			// Same encoding as the bed's own metadata: 0 south, 1 west, 2 north, 3 east
+			if (headZ > footZ) facing = 0;
+			else if (headX < footX) facing = 1;
+			else if (headZ < footZ) facing = 2;
+			else facing = 3;
+		}
+
+		public BlockPos getFootPos() {
+			return new BlockPos(footX, footY, footZ);
+		}
+
+		public BlockPos getHeadPos() {
+			return new BlockPos(headX, headY, headZ);
+		}
+	}
+}
@@ -53,6 +53,15 @@ public class MapConfig {
 		return 4; // Default
 	}
 
+	/**
+	 * Gets the name of the map this one's layout comes from.
+	 * Reskins resolve to their base map, lowercased like the map cache keys.
+	 */
+	public String getLayoutName() {
+		String layout = (reskinOf != null && !reskinOf.isEmpty()) ? reskinOf : name;
+		return layout.trim().toLowerCase();
+	}
+
 	/**
 	 * Checks if this is a fast mode map
 	 */
@@ -80,6 +89,20 @@ public class MapConfig {
 		return new ScanParameters(scanRadiusXZ, heightUp, heightDown);
 	}
 
+	/**
+	 * Gets the absolute world-space scan region for this map.
+	 * Maps are built around the origin, so this covers every bed regardless
+	 * of where the player stands. Returns null if the build bounds are unknown.
+	 *
+	 * @return {minX, minY, minZ, maxX, maxY, maxZ}, inclusive
+	 */
+	public int[] getScanRegion() {
+		if (buildRadius <= 0 || maxBuild <= minBuild) return null;
+
+		int radius = buildRadius + 10; // Same buffer as getScanParameters
+		return new int[] { -radius, Math.max(minBuild - 5, 0), -radius, radius, Math.min(maxBuild, 255), radius };
+	}
+
 	@Override
 	public String toString() {
 		return String.format("MapConfig{name='%s', pool='%s', minBuild=%d, maxBuild=%d, buildRadius=%d}",
@@ -0,0 +1,86 @@
+package com.adam.vBedPlates.events;
+
+import net.minecraft.util.BlockPos;
+
+import com.adam.vBedPlates.scan.DefenseComposition;
+
+/**
+ * Everything BedplateRender needs to place a bed's outline and billboard,
+ * worked out once when the bed is published instead of every frame. The
+ * render pass only does arithmetic on these values and never touches the world.
+ */
+public class BedRenderGeometry {
+
+	private static final double BILLBOARD_HEIGHT_OFFSET = 2.5;
+	private static final double OUTLINE_HEIGHT = 0.5; // Lower half of the bed
+	private static final double BOX_HEIGHT = 0.5;
+
+	// Outline box around both halves
+	public final double outlineMinX;
+	public final double outlineMinY;
+	public final double outlineMinZ;
+	public final double outlineWidth;
+	public final double outlineHeight;
+	public final double outlineDepth;
+
+	// Billboard centre, between the halves
+	public final double anchorX;
+	public final double anchorY;
+	public final double anchorZ;
+
+	// Billboard box and icon layout, in billboard units
+	public final double boxWidth;
+	public final double halfWidth;
+	public final double halfHeight;
+	public final int iconCount;
+	private final int[] iconTypes;
+	private final double[] iconX;
+
+	public BedRenderGeometry(BlockPos footPos, BlockPos headPos, int defenseMask) {
+		outlineMinX = Math.min(footPos.getX(), headPos.getX());
+		outlineMinY = footPos.getY() + 0.25 + 0.01;
+		outlineMinZ = Math.min(footPos.getZ(), headPos.getZ());
+		outlineWidth = Math.abs(headPos.getX() - footPos.getX()) + 1.0;
+		outlineHeight = OUTLINE_HEIGHT;
+		outlineDepth = Math.abs(headPos.getZ() - footPos.getZ()) + 1.0;
+
+		anchorX = (footPos.getX() + headPos.getX()) / 2.0 + 0.5;
+		anchorY = footPos.getY() + BILLBOARD_HEIGHT_OFFSET;
+		anchorZ = (footPos.getZ() + headPos.getZ()) / 2.0 + 0.5;
+
+		// Box grows with the number of defense types
+		iconCount = Integer.bitCount(defenseMask);
+		boxWidth = Math.max(0.9, Math.min(3.2, 0.9 + 0.35 * iconCount));
+		halfWidth = boxWidth / 2.0;
+		halfHeight = BOX_HEIGHT / 2.0;
+
+		// Icons evenly spaced horizontally with padding
+		iconTypes = new int[iconCount];
+		iconX = new double[iconCount];
+		double totalWidth = boxWidth * 0.9;
+		double iconSpacing = totalWidth / Math.max(1, iconCount);
+		double startX = -(totalWidth / 2.0) + iconSpacing / 2.0;
+
+		int i = 0;
+		for (int type = 0; type < DefenseComposition.TYPES; type++) {
+			if ((defenseMask & 1 << type) == 0) continue;
+			iconTypes[i] = type;
+			iconX[i] = startX + i * iconSpacing;
+			i++;
+		}
+	}
+
+	/**
+	 * DefenseComposition type of the i-th icon, left to right.
+	 */
+	public int getIconType(int i) {
+		return iconTypes[i];
+	}
+
+	/**
+	 * Horizontal offset of the i-th icon from the billboard centre.
+	 */
+	public double getIconX(int i) {
+		return iconX[i];
+	}
+}
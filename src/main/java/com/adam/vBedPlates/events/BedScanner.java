@@ -2,27 +2,49 @@ package com.adam.vBedPlates.events;
 
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.event.world.WorldEvent;
 
-import net.minecraft.item.ItemStack;
+import net.minecraft.block.state.IBlockState;
+
 import net.minecraft.client.Minecraft;
 import net.minecraft.util.BlockPos;
-import net.minecraft.block.Block;
 import net.minecraft.init.Blocks;
 import net.minecraft.util.ChatComponentText;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
 
+import com.adam.vBedPlates.vBedPlates;
 import com.adam.vBedPlates.commands.BedplateCommand;
+import com.adam.vBedPlates.config.BedAtlas;
 import com.adam.vBedPlates.config.MapConfig;
 import com.adam.vBedPlates.config.MapConfigManager;
+import com.adam.vBedPlates.scan.BedAnalyzer;
+import com.adam.vBedPlates.scan.BedNeighbourhood;
+import com.adam.vBedPlates.scan.BlockChangeJournal;
+import com.adam.vBedPlates.scan.BlockView;
+import com.adam.vBedPlates.scan.BreachPath;
+import com.adam.vBedPlates.scan.BreachPathFinder;
+import com.adam.vBedPlates.scan.DefenseComposition;
+import com.adam.vBedPlates.scan.DefenseFloodFill;
+import com.adam.vBedPlates.scan.ParallelSweep;
+import com.adam.vBedPlates.scan.ScanCursor;
+import com.adam.vBedPlates.scan.ScanWindow;
+import com.adam.vBedPlates.scan.ScanWorker;
+import com.adam.vBedPlates.scan.SectionScanner;
+import com.adam.vBedPlates.scan.SymmetryPredictor;
+import com.adam.vBedPlates.scan.WorldBlockView;
+import com.adam.vBedPlates.util.LongHashSet;
+import com.adam.vBedPlates.util.PackedPos;
 import com.adam.vBedPlates.util.ScoreboardParser;
 import com.adam.vBedPlates.util.TeamDetector;
 import com.adam.vBedPlates.util.TeamDetector.BedTeam;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
-import java.util.Map;
-import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
 
@@ -30,25 +52,110 @@ import java.util.ArrayList;
  * Enhanced bed scanner with map-aware scanning and team detection.
  */
 public class BedScanner {
-	private final Set<BlockPos> knownBeds = new HashSet<>();
-	private final Set<Block> defenseBlocks = new HashSet<>();
-	private final Set<BlockPos> obsidianBlocks = new HashSet<>();
-	private final Set<BlockPos> fullyEncasedBeds = new HashSet<>();
-	private final Map<BlockPos, Block> lastKnownBlocks = new HashMap<>();
-	public static List<BedData> trackedBeds = new ArrayList<>();
+	// Position sets are keyed by PackedPos so per-tick tracking never boxes or allocates
+	private final LongHashSet knownBeds = new LongHashSet();
+	private LongHashSet obsidianBlocks = new LongHashSet();
+	private LongHashSet rebuiltObsidian = new LongHashSet(); // Scratch for rebuildCombinedSets, swapped in on change
+	private final LongHashSet fullyEncasedBeds = new LongHashSet();
+	private WorldBlockView worldView = null;
+	private final int[] colorCounts = new int[16]; // Team color histogram of the last analysed bed
+	private final DefenseFloodFill floodFill = new DefenseFloodFill();
+	private final BreachPathFinder breachFinder = new BreachPathFinder();
+	private final List<BedData> trackedBeds = new ArrayList<>();
+	private int obsidianRevision = 0; // Bumped whenever the combined obsidian set actually changes
+
+	// What the renderer and commands see; replaced, never modified, by publishSnapshot
+	private static volatile TrackingSnapshot snapshot = TrackingSnapshot.EMPTY;
+	private long[] publishedObsidian = new long[0];
 
 	// Dynamic scan range based on map config
 	private int currentRadiusXZ = 30;
 	private int currentHeightUp = 15;
 	private int currentHeightDown = 5;
-	private static final int OBSIDIAN_SCAN_RADIUS = 5;
+	private static final int DEFENSE_REACH = DefenseFloodFill.MAX_LAYERS + 1; // Flood fill reach from the bed foot
+	private static final int SNAPSHOT_MARGIN = Math.max(TeamDetector.SCAN_RADIUS, DEFENSE_REACH);
+	private static final int WINDOW_AGE_OUT_TICKS = 600; // Beds outside the window are dropped after 30s
+	private static final int SPAWN_PROBE_RADIUS = 24; // Players spawn next to their own bed
+	private static final int PREDICTION_PROBE_RADIUS = 2;
+	private static final int PREDICTION_TIMEOUT_TICKS = 200;
+	private static final int BREACH_SEARCHES_PER_TICK = 2; // Bounds the Dijkstra work per tick on 8-team maps
 
 	// Map tracking
 	private String currentMapName = null;
 	private MapConfig currentMapConfig = null;
+	private int[] anchoredRegion = null; // currentMapConfig's scan region, computed once on detection
 	private boolean hasWarnedNoConfig = false;
 
-	private int tickCounter = 0;
+	// Records block changes so only touched beds get re-evaluated
+	private final BlockChangeJournal journal = new BlockChangeJournal();
+	// Changes drained from the journal while a worker job was captured or running; never attached
+	private final BlockChangeJournal changedSinceCapture = new BlockChangeJournal();
+
+	// Chunk keys (ChunkCoordIntPair.chunkXZ2Int) of loaded chunks, and of those still to be indexed.
+	// Beds per chunk are found through BedData.chunkKey; there are too few beds for an index to pay off.
+	private final LongHashSet loadedChunks = new LongHashSet();
+	private final LongHashSet pendingChunks = new LongHashSet();
+
+	// Background analysis for async mode; results from older generations are discarded
+	private final ScanWorker scanWorker = new ScanWorker();
+	private int scanGeneration = 0;
+	private final List<BlockPos> pendingRefreshes = new ArrayList<>(); // Beds of a failed job to re-analyse
+	private int failedJobs = 0; // Consecutive worker failures
+	private ScanWorker.Job sweepJob = null; // Parallel sweep being captured a few chunks per tick
+	private static final int MAX_FAILED_JOBS = 3; // Give up on the work after this many in a row
+
+	// Sliding scan window around the player; only newly exposed slabs get scanned
+	private final ScanWindow scanWindow = new ScanWindow();
+	private final LongHashSet pendingCandidates = new LongHashSet(); // PackedPos keys
+	private long currentTick = 0;
+
+	// Learned bed positions for the current map still waiting for their chunk to verify
+	private final List<BedAtlas.BedEntry> atlasPending = new ArrayList<>();
+	private List<BedAtlas.BedEntry> atlasLayout = null; // Stored layout of the current map, if complete
+
+	// Beds found by the initial index or the symmetry prediction after the map was detected.
+	// Only these are learned, so beds placed by players later in the game never are.
+	private final List<BedData> startupBeds = new ArrayList<>();
+	private long atlasLearnDeadline = -1; // -1 once beds found are no longer start-of-map beds
+	private static final int ATLAS_LEARN_TICKS = 1200;
+
+	// Symmetry prediction: small probes where the other beds should be, before any full sweep
+	private final List<BlockPos> predictedBeds = new ArrayList<>();
+	private final LongHashSet predictionHits = new LongHashSet(); // PackedPos keys
+	private long predictionDeadline = -1; // -1 when no prediction is running
+
+	// Rolling verification pass over the scan window, spread over maxStaleTicks
+	private final ScanCursor sweepCursor = new ScanCursor();
+	private int sweepMinY = 0;
+	private int sweepMaxY = 255;
+
+	// Section scan visitors, created once so scanning never allocates a lambda
+	private World scanWorld = null; // World the index and verify visitors register beds in
+	private final SectionScanner.BlockVisitor indexVisitor = (x, y, z, blockId, meta) -> {
+		if ((meta & 8) == 0 && !knownBeds.contains(PackedPos.pack(x, y, z))) {
+			onBedFootFound(scanWorld, new BlockPos(x, y, z), meta, true);
+		}
+	};
+	private final SectionScanner.BlockVisitor verifyVisitor = (x, y, z, blockId, meta) -> {
+		if ((meta & 8) == 0 && !knownBeds.contains(PackedPos.pack(x, y, z))) {
+			onBedFootFound(scanWorld, new BlockPos(x, y, z), meta, false);
+		}
+	};
+	private final SectionScanner.BlockVisitor candidateVisitor = (x, y, z, blockId, meta) -> {
+		long pos = PackedPos.pack(x, y, z);
+		if ((meta & 8) == 0 && !knownBeds.contains(pos)) {
+			pendingCandidates.add(pos);
+		}
+	};
+	private final SectionScanner.BlockVisitor probeVisitor = (x, y, z, blockId, meta) -> {
+		long pos = PackedPos.pack(x, y, z);
+		if ((meta & 8) == 0) {
+			predictionHits.add(pos);
+			if (!knownBeds.contains(pos)) {
+				pendingCandidates.add(pos);
+			}
+		}
+	};
 
 	@SubscribeEvent
 	public void onClientTick(TickEvent.ClientTickEvent event) {
@@ -57,41 +164,85 @@ public class BedScanner {
 		if (mc.theWorld == null || mc.thePlayer == null) return;
 
 		World world = mc.theWorld;
-		BlockPos playerPos = mc.thePlayer.getPosition();
+		currentTick = world.getTotalWorldTime();
+
+		// Make sure the change journal listens to the current world
+		journal.attach(world);
 
 		// Check for map changes every 2 seconds
-		if (world.getTotalWorldTime() % 40 == 0) {
+		if (currentTick % 40 == 0) {
 			updateMapConfiguration();
 		}
 
-		// Perform bed scanning every second (using dynamic scan range)
-		if (world.getTotalWorldTime() % 20 == 0) {
-			scanForBeds(world, playerPos);
-			updateDefenseBlocks(world);
-			rebuildObsidianHighlights(world);
+		// Same rounding as Entity.getPosition, without the BlockPos
+		int playerX = MathHelper.floor_double(mc.thePlayer.posX);
+		int playerY = MathHelper.floor_double(mc.thePlayer.posY + 0.5);
+		int playerZ = MathHelper.floor_double(mc.thePlayer.posZ);
+
+		// Follow the player (or hold the map region), scanning only what came into range
+		updateScanWindow(world, playerX, playerY, playerZ);
+		if (currentTick % 20 == 0) {
+			ageOutBeds();
+		}
+
+		// Confirm learned bed positions as their chunks arrive
+		verifyAtlasBeds(world);
+		advancePrediction(world, playerX, playerY, playerZ);
+
+		// Pick up whatever the background worker finished since the last tick
+		ScanWorker.Result result = scanWorker.poll();
+		if (result != null) {
+			applyScanResult(world, result);
 		}
 
-		// Detect nearby block changes every 0.5 seconds
-		if (tickCounter++ >= 10) {
-			detectNearbyBlockChanges(world);
-			tickCounter = 0;
+		// Feed block changes to the breach paths before the scan paths consume the journal
+		updateBreachPaths(world);
+
+		long deadline = System.nanoTime() + BedplateCommand.Config.scanBudgetMicros * 1000L;
+		if (BedplateCommand.Config.asyncScanning) {
+			submitAsyncScan(world, deadline);
+		} else {
+			// Re-evaluate beds whose surroundings changed since the last tick
+			processBlockChanges(world);
+			processPendingCandidates(world);
+
+			// Hand large backlogs (map detection, joining a game) to the parallel sweep,
+			// otherwise index chunks that arrived since the last tick
+			if (sweepJob != null || (BedplateCommand.Config.parallelSweep &&
+					pendingChunks.size() >= ParallelSweep.MIN_COLUMNS)) {
+				advanceFullSweep(world, deadline);
+			} else {
+				indexPendingChunks(world, deadline);
+			}
+
+		}
+
+		// Re-verify a slice of the scan window, in both modes. A map-anchored region
+		// was swept in full on detection and is kept current by the journal.
+		if (getAnchoredRegion() == null) {
+			advanceVerificationSweep(world);
 		}
+
+		publishSnapshot();
 	}
 
 	@SubscribeEvent
 	public void onWorldLoad(WorldEvent.Load event) {
+		if (event.world.isRemote) {
+			journal.attach(event.world);
+		}
+
 		Minecraft mc = Minecraft.getMinecraft();
 		if (mc.theWorld == null || mc.thePlayer == null) return;
 
 		// Clear map cache on world change
 		currentMapName = null;
 		currentMapConfig = null;
+		anchoredRegion = null;
+		stopPrediction();
 		hasWarnedNoConfig = false;
 		ScoreboardParser.clearCache();
 
-		World world = mc.theWorld;
-		BlockPos playerPos = mc.thePlayer.getPosition();
-
 		sendChat("§7World loaded — checking for Bedwars game...");
 
 		// Initialize map config manager if not already done
@@ -100,8 +251,56 @@ public class BedScanner {
 		}
 
 		updateMapConfiguration();
-		scanForBeds(world, playerPos);
-		updateDefenseBlocks(world);
+	}
+
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event) {
+		if (event.world == journal.getAttachedWorld()) {
+			journal.detach();
+		}
+		if (event.world.isRemote) {
+			BedAtlas.getInstance().flush();
+			clearAllTracking();
+			loadedChunks.clear();
+			pendingChunks.clear();
+			pendingCandidates.clear();
+			scanWindow.reset();
+			publishSnapshot();
+		}
+	}
+
+	@SubscribeEvent
+	public void onChunkLoad(ChunkEvent.Load event) {
+		if (!event.world.isRemote) return;
+
+		// The client fires Load before the chunk data is filled in, so index on the next tick
+		Chunk chunk = event.getChunk();
+		long key = ChunkCoordIntPair.chunkXZ2Int(chunk.xPosition, chunk.zPosition);
+		loadedChunks.add(key);
+		pendingChunks.add(key);
+	}
+
+	@SubscribeEvent
+	public void onChunkUnload(ChunkEvent.Unload event) {
+		if (!event.world.isRemote) return;
+
+		Chunk chunk = event.getChunk();
+		long key = ChunkCoordIntPair.chunkXZ2Int(chunk.xPosition, chunk.zPosition);
+		loadedChunks.remove(key);
+		pendingChunks.remove(key);
+
+		// Walk backwards so removeBed can drop the current entry
+		boolean removed = false;
+		for (int i = trackedBeds.size() - 1; i >= 0; i--) {
+			BedData bedData = trackedBeds.get(i);
+			if (bedData.chunkKey == key) {
+				removeBed(bedData);
+				removed = true;
+			}
+		}
+		if (removed) {
+			rebuildCombinedSets();
+		}
 	}
 
 	/**
@@ -113,8 +312,11 @@ public class BedScanner {
 			// Not in Bedwars, use default scanning
 			if (currentMapName != null) {
 				sendChat("§7Left Bedwars game — reverting to default scanning");
+				BedAtlas.getInstance().flush();
 				currentMapName = null;
 				currentMapConfig = null;
+				anchoredRegion = null;
+				stopPrediction();
 				resetToDefaultScanParameters();
 			}
 			return;
@@ -129,6 +331,7 @@ public class BedScanner {
 
 		currentMapName = mapName;
 		currentMapConfig = MapConfigManager.getInstance().getMapConfig(mapName);
+		anchoredRegion = currentMapConfig != null ? currentMapConfig.getScanRegion() : null;
 
 		if (currentMapConfig != null) {
 			// Update scan parameters based on map config
@@ -140,14 +343,34 @@ public class BedScanner {
 			sendChat("§aMap detected: §f" + currentMapConfig.name +
 					" §7(" + currentMapConfig.getTeamCount() + " teams, " +
 					(currentMapConfig.isFastMode() ? "Fast" : "Slow") + ")");
-			sendChat("§7Scan area: §f" + currentRadiusXZ + "x" + currentHeightUp + "x" + currentHeightDown);
+			int[] region = getAnchoredRegion();
+			if (region != null) {
+				sendChat("§7Scan region: §f" + region[0] + ".." + region[3] + " §7x §f" +
+						region[1] + ".." + region[4] + " §7(map-anchored)");
+			} else {
+				sendChat("§7Scan area: §f" + currentRadiusXZ + "x" + currentHeightUp + "x" + currentHeightDown);
+			}
 
 			hasWarnedNoConfig = false;
 
-			// Clear and rescan with new parameters
+			// Clear and re-index every loaded chunk. Dropping the window makes the
+			// re-index the one full sweep of the new region instead of a slab scan.
 			clearAllTracking();
-			scanForBeds(Minecraft.getMinecraft().theWorld,
-					Minecraft.getMinecraft().thePlayer.getPosition());
+			scanWindow.reset();
+
+			// A learned layout only needs its few bed positions checked
+			List<BedAtlas.BedEntry> atlasBeds = BedAtlas.getInstance().getBeds(currentMapConfig);
+			atlasLearnDeadline = currentTick + ATLAS_LEARN_TICKS;
+			if (atlasBeds.size() >= currentMapConfig.getTeamCount()) {
+				atlasLayout = atlasBeds;
+				atlasPending.addAll(atlasBeds);
+				sendChat("§7Verifying §f" + atlasBeds.size() + "§7 known bed positions");
+			} else if (BedplateCommand.Config.symmetryPrediction) {
+				// Find one bed, then probe its symmetric images; sweep only if that fails
+				predictionDeadline = currentTick + PREDICTION_TIMEOUT_TICKS;
+			} else {
+				pendingChunks.addAll(loadedChunks);
+			}
 		} else {
 			// Unknown map - use default scanning
 			if (!hasWarnedNoConfig) {
@@ -155,6 +378,7 @@ public class BedScanner {
 				sendChat("§7Using default scan parameters");
 				hasWarnedNoConfig = true;
 			}
+			stopPrediction(); // It needs the team count of a known map
 			resetToDefaultScanParameters();
 		}
 	}
@@ -174,274 +398,899 @@ public class BedScanner {
 	private void clearAllTracking() {
 		knownBeds.clear();
 		trackedBeds.clear();
-		defenseBlocks.clear();
-		obsidianBlocks.clear();
+		if (!obsidianBlocks.isEmpty()) {
+			obsidianBlocks.clear();
+			obsidianRevision++;
+		}
 		fullyEncasedBeds.clear();
-		lastKnownBlocks.clear();
+		atlasPending.clear();
+		atlasLayout = null;
+		startupBeds.clear();
+		atlasLearnDeadline = -1;
+		stopPrediction();
+		pendingRefreshes.clear();
+		sweepJob = null; // Its result would be discarded anyway
+		changedSinceCapture.clear();
+		scanGeneration++;
 	}
 
-	private void detectNearbyBlockChanges(World world) {
-		Set<BlockPos> affectedBeds = new HashSet<>();
-		Set<BlockPos> newObsidian = new HashSet<>();
+	/**
+	 * Runs the symmetry prediction started on map detection. The first bed
+	 * comes from a probe around the player (or from chunk indexing), its
+	 * mirrored/rotated images are probed as their chunks arrive, and the full
+	 * sweep only runs if that does not turn up one bed per team in time.
+	 */
+	private void advancePrediction(World world, int playerX, int playerY, int playerZ) {
+		if (predictionDeadline < 0 || currentMapConfig == null) return;
+
+		int teamCount = currentMapConfig.getTeamCount();
+		if (predictionHits.isEmpty()) {
+			if (!trackedBeds.isEmpty()) {
+				predictionHits.add(PackedPos.pack(trackedBeds.get(0).pos));
+			} else if (currentTick % 20 == 0) {
+				probeForBeds(world, playerX, playerY, playerZ, SPAWN_PROBE_RADIUS, 8);
+			}
 
-		for (BlockPos bed : new HashSet<>(knownBeds)) {
-			if (world.getBlockState(bed).getBlock() != Blocks.bed) {
+			if (!predictionHits.isEmpty()) {
+				BlockPos seed = PackedPos.toBlockPos(predictionHits.keyAt(predictionHits.firstSlot()));
+				predictedBeds.addAll(SymmetryPredictor.predict(seed, teamCount));
+			}
+		}
+
+		// Probe predicted spots whose chunks have arrived
+		Iterator<BlockPos> iterator = predictedBeds.iterator();
+		while (iterator.hasNext()) {
+			BlockPos predicted = iterator.next();
+			if (SectionScanner.getLoadedChunk(world, predicted.getX() >> 4, predicted.getZ() >> 4) == null) continue;
+
+			iterator.remove();
+			probeForBeds(world, predicted.getX(), predicted.getY(), predicted.getZ(),
+					PREDICTION_PROBE_RADIUS, PREDICTION_PROBE_RADIUS);
+		}
+
+		if (predictionHits.size() >= teamCount) {
+			sendChat("§7Found all §f" + teamCount + "§7 beds by symmetry");
+			predictionDeadline = -1;
+			predictedBeds.clear();
+		} else if ((!predictionHits.isEmpty() && predictedBeds.isEmpty()) || currentTick > predictionDeadline) {
+			// Predictions exhausted or timed out: fall back to the full sweep
+			predictionDeadline = -1;
+			predictedBeds.clear();
+			pendingChunks.addAll(loadedChunks);
+		}
+	}
+
+	/**
+	 * Abandons any running symmetry prediction.
+	 */
+	private void stopPrediction() {
+		predictedBeds.clear();
+		predictionHits.clear();
+		predictionDeadline = -1;
+	}
+
+	/**
+	 * Scans a small box for bed feet, queueing them as candidates.
+	 */
+	private void probeForBeds(World world, int centerX, int centerY, int centerZ, int radiusXZ, int radiusY) {
+		SectionScanner.scanVolume(world,
+				centerX - radiusXZ, centerY - radiusY, centerZ - radiusXZ,
+				centerX + radiusXZ, centerY + radiusY, centerZ + radiusXZ,
+				BedAnalyzer.BED_FILTER, probeVisitor);
+	}
+
+	/**
+	 * Checks learned bed positions whose chunks have arrived. A missing bed may
+	 * just have been broken already (e.g. after rejoining a game), so the
+	 * loaded chunks are swept as usual but the layout is kept; it is only
+	 * forgotten if a bed turns up where it predicts none (see noteStartupBed).
+	 * Beds in chunks that never arrive are simply found by chunk indexing later.
+	 */
+	private void verifyAtlasBeds(World world) {
+		if (atlasPending.isEmpty()) return;
+
+		Iterator<BedAtlas.BedEntry> iterator = atlasPending.iterator();
+		while (iterator.hasNext()) {
+			BedAtlas.BedEntry entry = iterator.next();
+			BlockPos footPos = entry.getFootPos();
+			if (SectionScanner.getLoadedChunk(world, footPos.getX() >> 4, footPos.getZ() >> 4) == null) continue;
+			iterator.remove();
+
+			IBlockState state = world.getBlockState(footPos);
+			int meta = state.getBlock().getMetaFromState(state);
+			if (state.getBlock() == Blocks.bed && (meta & 8) == 0 && (meta & 3) == entry.facing) {
+				onBedFootFound(world, footPos, meta, true);
+			} else {
+				sendChat("§eKnown bed missing — rescanning");
+				atlasPending.clear();
+				pendingChunks.addAll(loadedChunks);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Drains the block change journal and re-evaluates only the beds whose
+	 * neighbourhood was touched. Newly placed beds are registered directly.
+	 */
+	private void processBlockChanges(World world) {
+		// Refreshes left over from a failed async job, if async was switched off since
+		boolean changed = false;
+		for (int i = 0; i < pendingRefreshes.size(); i++) {
+			BedData bedData = findTrackedBed(pendingRefreshes.get(i));
+			if (bedData != null) {
+				refreshBed(world, bedData);
+				changed = true;
+			}
+		}
+		pendingRefreshes.clear();
+
+		if (journal.isEmpty()) {
+			if (changed) {
+				rebuildCombinedSets();
+			}
+			return;
+		}
+
+		// Walk backwards so removeBed can drop the current entry
+		for (int i = trackedBeds.size() - 1; i >= 0; i--) {
+			BedData bedData = trackedBeds.get(i);
+			BlockPos bed = bedData.pos;
+			if (!journal.touches(bed.getX() - DEFENSE_REACH, bed.getY(), bed.getZ() - DEFENSE_REACH,
+					bed.getX() + DEFENSE_REACH, bed.getY() + DEFENSE_REACH, bed.getZ() + DEFENSE_REACH)) {
 				continue;
 			}
 
-			BlockPos min = bed.add(-2, 0, -2);
-			BlockPos max = bed.add(2, 4, 2);
+			if (world.getBlockState(bed).getBlock() != Blocks.bed) {
+				removeBed(bedData);
+			} else {
+				refreshBed(world, bedData);
+			}
+			changed = true;
+		}
 
-			for (BlockPos pos : BlockPos.getAllInBox(min, max)) {
-				Block current = world.getBlockState(pos).getBlock();
-				Block previous = lastKnownBlocks.get(pos);
+		LongHashSet dirty = journal.getDirtyBlocks();
+		BlockView view = viewOf(world);
+		for (int slot = dirty.firstSlot(); slot >= 0; slot = dirty.nextSlot(slot)) {
+			long pos = dirty.keyAt(slot);
+			int state = view.getStateId(PackedPos.getX(pos), PackedPos.getY(pos), PackedPos.getZ(pos));
+			if (state >> 4 == BedAnalyzer.BED_ID && (state & 8) == 0 && !knownBeds.contains(pos)) {
+				onBedFootFound(world, PackedPos.toBlockPos(pos), state & 15, false);
+			}
+		}
 
-				lastKnownBlocks.put(pos, current);
+		drainJournal();
+		if (changed) {
+			rebuildCombinedSets();
+		}
+	}
 
-				if (current == Blocks.obsidian) {
-					newObsidian.add(pos);
-				}
+	/**
+	 * Clears the journal once its changes are handled. While a worker job is
+	 * captured or running they are kept aside, so its result is not applied
+	 * over anything that changed after its snapshot was taken.
+	 */
+	private void drainJournal() {
+		if (scanWorker.isBusy() || sweepJob != null) {
+			changedSinceCapture.addAll(journal);
+		}
+		journal.clear();
+	}
 
-				if (previous == null || previous != current) {
-					if (current == Blocks.obsidian || previous == Blocks.obsidian) {
-						affectedBeds.add(bed);
-					}
-				}
+	/**
+	 * Whether anything around a bed changed after the in-flight job's snapshot.
+	 * Changes still in the journal are newer than any capture too.
+	 */
+	private boolean changedSinceCapture(BlockPos bed) {
+		int minX = bed.getX() - DEFENSE_REACH, maxX = bed.getX() + DEFENSE_REACH;
+		int minZ = bed.getZ() - DEFENSE_REACH, maxZ = bed.getZ() + DEFENSE_REACH;
+		int minY = bed.getY(), maxY = bed.getY() + DEFENSE_REACH;
+		return changedSinceCapture.touches(minX, minY, minZ, maxX, maxY, maxZ) ||
+				journal.touches(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	/**
+	 * Indexes the beds of every chunk that arrived since the last tick.
+	 */
+	private void indexPendingChunks(World world, long deadline) {
+		boolean first = true;
+
+		// Always make progress, then stop once the tick budget is spent
+		for (int slot = pendingChunks.firstSlot(); slot >= 0 && (first || System.nanoTime() < deadline);
+				slot = pendingChunks.nextSlot(slot - 1)) {
+			long key = pendingChunks.keyAt(slot);
+			pendingChunks.remove(key);
+			first = false;
+
+			Chunk chunk = SectionScanner.getLoadedChunk(world, (int) key, (int) (key >> 32));
+			if (chunk != null) {
+				indexChunk(world, chunk);
 			}
 		}
+	}
+
+	/**
+	 * Advances the rolling verification pass over the scan area. Each column
+	 * is re-scanned for beds and its tracked beds are refreshed, catching
+	 * anything the change journal missed. A pass is spread evenly over
+	 * maxStaleTicks and the next one starts maxStaleTicks after it began,
+	 * which bounds how stale any region can get while keeping a quiet
+	 * game's cost to a column or two per tick.
+	 */
+	private void advanceVerificationSweep(World world) {
+		if (!sweepCursor.hasNext()) {
+			if (!scanWindow.isPlaced() || !sweepCursor.isPassDue(currentTick, BedplateCommand.Config.maxStaleTicks)) return;
+
+			sweepCursor.begin(scanWindow.getMinX(), scanWindow.getMinZ(),
+					scanWindow.getMaxX(), scanWindow.getMaxZ(), currentTick);
+			sweepMinY = scanWindow.getMinY();
+			sweepMaxY = scanWindow.getMaxY();
+		}
 
-		obsidianBlocks.clear();
-		obsidianBlocks.addAll(newObsidian);
+		int required = sweepCursor.requiredThisTick(currentTick, BedplateCommand.Config.maxStaleTicks);
+		boolean changed = false;
+		for (int processed = 0; processed < required && sweepCursor.hasNext(); processed++) {
+			changed |= verifyColumn(world, sweepCursor.next());
+		}
 
-		for (BlockPos bed : affectedBeds) {
-			checkFullBedEncasement(world, bed);
+		if (changed) {
+			rebuildCombinedSets();
 		}
 	}
 
-	private void scanForBeds(World world, BlockPos center) {
-		// Validate destroyed beds
-		List<BedData> toRemoveData = new ArrayList<>();
-		Set<BlockPos> toRemoveBeds = new HashSet<>();
+	/**
+	 * Re-scans one chunk column of the verification pass.
+	 *
+	 * @return true if any tracked bed was refreshed or removed
+	 */
+	private boolean verifyColumn(World world, long key) {
+		Chunk chunk = SectionScanner.getLoadedChunk(world, (int) key, (int) (key >> 32));
+		if (chunk == null) return false;
+
+		int baseX = chunk.xPosition << 4;
+		int baseZ = chunk.zPosition << 4;
+		scanWorld = world;
+		SectionScanner.scanChunk(chunk, baseX, sweepMinY, baseZ, baseX + 15, sweepMaxY, baseZ + 15,
+				BedAnalyzer.BED_FILTER, verifyVisitor);
+		scanWorld = null;
+
+		// Walk backwards so removeBed can drop the current entry
+		boolean refreshed = false;
+		for (int i = trackedBeds.size() - 1; i >= 0; i--) {
+			BedData bedData = trackedBeds.get(i);
+			if (bedData.chunkKey != key) continue;
+
+			if (world.getBlockState(bedData.pos).getBlock() != Blocks.bed) {
+				removeBed(bedData);
+			} else {
+				refreshBed(world, bedData);
+			}
+			refreshed = true;
+		}
+		return refreshed;
+	}
 
-		for (BedData bedData : trackedBeds) {
-			Block block = world.getBlockState(bedData.pos).getBlock();
-			if (block != Blocks.bed) {
-				toRemoveData.add(bedData);
-				toRemoveBeds.add(bedData.pos);
+	/**
+	 * Finds every bed in a single chunk column that lies inside the scan
+	 * window, reading its sections directly.
+	 */
+	private void indexChunk(World world, Chunk chunk) {
+		int baseX = chunk.xPosition << 4;
+		int baseZ = chunk.zPosition << 4;
+		int minY = scanWindow.isPlaced() ? scanWindow.getMinY() : 0;
+		int maxY = scanWindow.isPlaced() ? scanWindow.getMaxY() : 255;
+		int minX = scanWindow.isPlaced() ? Math.max(baseX, scanWindow.getMinX()) : baseX;
+		int minZ = scanWindow.isPlaced() ? Math.max(baseZ, scanWindow.getMinZ()) : baseZ;
+		int maxX = scanWindow.isPlaced() ? Math.min(baseX + 15, scanWindow.getMaxX()) : baseX + 15;
+		int maxZ = scanWindow.isPlaced() ? Math.min(baseZ + 15, scanWindow.getMaxZ()) : baseZ + 15;
+
+		scanWorld = world;
+		SectionScanner.scanChunk(chunk, minX, minY, minZ, maxX, maxY, maxZ, BedAnalyzer.BED_FILTER, indexVisitor);
+		scanWorld = null;
+	}
 
-				BlockPos min = bedData.pos.add(-OBSIDIAN_SCAN_RADIUS, 0, -OBSIDIAN_SCAN_RADIUS);
-				BlockPos max = bedData.pos.add(OBSIDIAN_SCAN_RADIUS, OBSIDIAN_SCAN_RADIUS, OBSIDIAN_SCAN_RADIUS);
-				for (BlockPos pos : BlockPos.getAllInBox(min, max)) {
-					obsidianBlocks.remove(pos);
-					lastKnownBlocks.remove(pos);
-				}
+	/**
+	 * Slides the scan window with the player. Only the slabs that came into
+	 * range are scanned, so the work is proportional to the distance
+	 * travelled rather than to the window volume. Bed feet found there are
+	 * queued as candidates for the normal (sync or async) analysis.
+	 */
+	private void updateScanWindow(World world, int centerX, int centerY, int centerZ) {
+		int[] region = getAnchoredRegion();
+		int exposed;
+		if (region != null) {
+			// Fixed region: after the first placement this never exposes anything
+			exposed = scanWindow.moveTo(region[0], region[1], region[2], region[3], region[4], region[5]);
+		} else {
+			exposed = scanWindow.moveTo(
+					centerX - currentRadiusXZ, centerY - currentHeightDown, centerZ - currentRadiusXZ,
+					centerX + currentRadiusXZ, centerY + currentHeightUp, centerZ + currentRadiusXZ);
+		}
+
+		int[] boxes = scanWindow.getExposedBoxes();
+		for (int i = 0; i < exposed * 6; i += 6) {
+			SectionScanner.scanVolume(world, boxes[i], boxes[i + 1], boxes[i + 2], boxes[i + 3], boxes[i + 4], boxes[i + 5],
+					BedAnalyzer.BED_FILTER, candidateVisitor);
+		}
+	}
+
+	/**
+	 * Returns the absolute scan region of the current map when map-anchored
+	 * scanning applies, or null to fall back to the player-relative window.
+	 */
+	private int[] getAnchoredRegion() {
+		if (!BedplateCommand.Config.mapAnchoredScan) return null;
+		return anchoredRegion;
+	}
+
+	/**
+	 * Drops beds that have been outside the scan window for a while. They
+	 * are not rescanned; if the player comes back the slab scan finds them again.
+	 */
+	private void ageOutBeds() {
+		boolean removed = false;
+		for (int i = trackedBeds.size() - 1; i >= 0; i--) {
+			BedData bedData = trackedBeds.get(i);
+			BlockPos bed = bedData.pos;
+			if (scanWindow.contains(bed.getX(), bed.getY(), bed.getZ())) {
+				bedData.lastInWindowTick = currentTick;
+			} else if (currentTick - bedData.lastInWindowTick > WINDOW_AGE_OUT_TICKS) {
+				removeBed(bedData);
+				removed = true;
 			}
 		}
 
-		trackedBeds.removeAll(toRemoveData);
-		knownBeds.removeAll(toRemoveBeds);
-		defenseBlocks.clear();
-		fullyEncasedBeds.removeAll(toRemoveBeds);
-
-		// Scan for new beds using dynamic scan range
-		for (int x = -currentRadiusXZ; x <= currentRadiusXZ; x++) {
-			for (int y = -currentHeightDown; y <= currentHeightUp; y++) {
-				for (int z = -currentRadiusXZ; z <= currentRadiusXZ; z++) {
-					BlockPos checkPos = center.add(x, y, z);
-					Block block = world.getBlockState(checkPos).getBlock();
-
-					if (block == Blocks.bed) {
-						int meta = block.getMetaFromState(world.getBlockState(checkPos));
-						boolean isHead = (meta & 8) != 0;
-
-						if (!isHead && !knownBeds.contains(checkPos)) {
-							knownBeds.add(checkPos);
-							BlockPos headPos = getOtherHalf(world, checkPos);
-							if (headPos != null) {
-								knownBeds.add(headPos);
-							}
-
-							// Detect team and create bed data
-							BedTeam team = TeamDetector.detectBedTeam(world, checkPos);
-							BedData bedData = new BedData(checkPos, team);
-							trackedBeds.add(bedData);
-
-							String teamInfo = (team != BedTeam.UNKNOWN)
-									? " " + TeamDetector.getTeamIcon(team)
-									: "";
-							//sendChat("§aFound bed" + teamInfo + " §7at §f" + checkPos.getX() + " " + checkPos.getY() + " " + checkPos.getZ());
-
-							// Cache nearby blocks
-							BlockPos min = checkPos.add(-4, 0, -4);
-							BlockPos max = checkPos.add(4, 4, 4);
-							for (BlockPos pos : BlockPos.getAllInBox(min, max)) {
-								Block nearby = world.getBlockState(pos).getBlock();
-								lastKnownBlocks.put(pos, nearby);
-							}
-
-							scanSurroundings(world, checkPos, OBSIDIAN_SCAN_RADIUS);
-							checkFullBedEncasement(world, checkPos);
-						}
-					}
-				}
+		if (removed) {
+			rebuildCombinedSets();
+		}
+	}
+
+	/**
+	 * Registers bed feet found by the window slab scan.
+	 */
+	private void processPendingCandidates(World world) {
+		if (pendingCandidates.isEmpty()) return;
+
+		BlockView view = viewOf(world);
+		for (int slot = pendingCandidates.firstSlot(); slot >= 0; slot = pendingCandidates.nextSlot(slot)) {
+			long pos = pendingCandidates.keyAt(slot);
+			int state = view.getStateId(PackedPos.getX(pos), PackedPos.getY(pos), PackedPos.getZ(pos));
+			if (state >> 4 == BedAnalyzer.BED_ID && (state & 8) == 0 && !knownBeds.contains(pos)) {
+				onBedFootFound(world, PackedPos.toBlockPos(pos), state & 15, predictionHits.contains(pos));
 			}
 		}
+		pendingCandidates.clear();
 	}
 
-	private void updateDefenseBlocks(World world) {
-		for (BedData bedData : trackedBeds) {
-			Set<Block> bedDefTypes = new HashSet<>();
-			for (int x = -OBSIDIAN_SCAN_RADIUS; x <= OBSIDIAN_SCAN_RADIUS; x++) {
-				for (int y = 0; y <= OBSIDIAN_SCAN_RADIUS; y++) {
-					for (int z = -OBSIDIAN_SCAN_RADIUS; z <= OBSIDIAN_SCAN_RADIUS; z++) {
-						BlockPos pos = bedData.pos.add(x, y, z);
-						Block block = world.getBlockState(pos).getBlock();
-						if (isDefenseBlock(block)) {
-							bedDefTypes.add(block);
-						}
-					}
+	/**
+	 * Copies the chunks needed for pending chunk indexing and journal changes,
+	 * then hands the analysis to the background worker. The client thread
+	 * only pays for the copy; the result is applied on a later tick. Pending
+	 * chunks beyond the tick budget are left for the next job.
+	 */
+	private void submitAsyncScan(World world, long deadline) {
+		if (scanWorker.isBusy()) return;
+		if (pendingChunks.isEmpty() && journal.isEmpty() && pendingCandidates.isEmpty() && pendingRefreshes.isEmpty() &&
+				!hasUnsubmittedBreach()) return;
+
+		ScanWorker.Job job = new ScanWorker.Job(scanGeneration);
+		job.parallel = BedplateCommand.Config.parallelSweep;
+		capturePendingChunks(world, job, deadline);
+
+		int margin = SNAPSHOT_MARGIN;
+		for (int i = 0; i < pendingRefreshes.size(); i++) {
+			BlockPos bed = pendingRefreshes.get(i);
+			job.bedsToRefresh.add(bed);
+			job.snapshot.captureArea(world, bed.getX() - margin, bed.getZ() - margin,
+					bed.getX() + margin, bed.getZ() + margin);
+		}
+		pendingRefreshes.clear();
+
+		if (!journal.isEmpty()) {
+			for (int i = 0; i < trackedBeds.size(); i++) {
+				BlockPos bed = trackedBeds.get(i).pos;
+				if (journal.touches(bed.getX() - DEFENSE_REACH, bed.getY(), bed.getZ() - DEFENSE_REACH,
+						bed.getX() + DEFENSE_REACH, bed.getY() + DEFENSE_REACH, bed.getZ() + DEFENSE_REACH)) {
+					job.bedsToRefresh.add(bed);
+					job.snapshot.captureArea(world, bed.getX() - margin, bed.getZ() - margin,
+							bed.getX() + margin, bed.getZ() + margin);
+				}
+			}
+
+			LongHashSet dirty = journal.getDirtyBlocks();
+			BlockView view = viewOf(world);
+			for (int slot = dirty.firstSlot(); slot >= 0; slot = dirty.nextSlot(slot)) {
+				long pos = dirty.keyAt(slot);
+				int state = view.getStateId(PackedPos.getX(pos), PackedPos.getY(pos), PackedPos.getZ(pos));
+				if (state >> 4 == BedAnalyzer.BED_ID && !knownBeds.contains(pos)) {
+					pendingCandidates.add(pos);
 				}
 			}
-			bedData.defenseBlocks = bedDefTypes;
 		}
 
-		defenseBlocks.clear();
-		for (BedData bedData : trackedBeds) {
-			defenseBlocks.addAll(bedData.defenseBlocks);
+		for (int slot = pendingCandidates.firstSlot(); slot >= 0; slot = pendingCandidates.nextSlot(slot)) {
+			BlockPos pos = PackedPos.toBlockPos(pendingCandidates.keyAt(slot));
+			job.candidates.add(pos);
+			job.snapshot.captureArea(world, pos.getX() - margin, pos.getZ() - margin,
+					pos.getX() + margin, pos.getZ() + margin);
 		}
+
+		// Stale breach paths are searched on the worker too, each against a copy
+		for (int i = 0; i < trackedBeds.size(); i++) {
+			BedData bedData = trackedBeds.get(i);
+			BreachPath breach = bedData.breach;
+			if (!breach.isStale() || bedData.searchingBreach != null) continue;
+
+			bedData.searchingBreach = breach.copyForSearch();
+			bedData.breachChangedWhileSearching = false;
+			job.breachPaths.add(bedData.searchingBreach);
+			job.snapshot.captureArea(world, breach.getMinX(), breach.getMinZ(), breach.getMaxX(), breach.getMaxZ());
+		}
+
+		pendingCandidates.clear();
+		drainJournal();
+		job.clipTo(scanWindow);
+		scanWorker.submit(job);
 	}
 
-	private void sendChat(String msg) {
-		Minecraft mc = Minecraft.getMinecraft();
-		if (mc.thePlayer != null) {
-			mc.thePlayer.addChatMessage(new ChatComponentText("[§avBedplate§f] " + msg));
+	private boolean hasUnsubmittedBreach() {
+		for (int i = 0; i < trackedBeds.size(); i++) {
+			BedData bedData = trackedBeds.get(i);
+			if (bedData.breach.isStale() && bedData.searchingBreach == null) return true;
 		}
+		return false;
 	}
 
-	private void scanSurroundings(World world, BlockPos bedPos, int radius) {
-		for (int x = -radius; x <= radius; x++) {
-			for (int y = 0; y <= radius; y++) {
-				for (int z = -radius; z <= radius; z++) {
-					BlockPos checkPos = bedPos.add(x, y, z);
-					Block nearbyBlock = world.getBlockState(checkPos).getBlock();
+	/**
+	 * Captures the pending backlog into one parallel sweep job, a tick's budget
+	 * at a time, and sends it to the worker once the backlog is drained.
+	 * Chunks arriving meanwhile join the same sweep. Block changes keep being
+	 * handled on the client thread throughout.
+	 */
+	private void advanceFullSweep(World world, long deadline) {
+		if (sweepJob == null) {
+			sweepJob = new ScanWorker.Job(scanGeneration);
+			sweepJob.parallel = true;
+		}
 
-					if (nearbyBlock == Blocks.obsidian) {
-						if (!obsidianBlocks.contains(checkPos)) {
-							obsidianBlocks.add(checkPos);
-						}
+		capturePendingChunks(world, sweepJob, deadline);
+		if (pendingChunks.isEmpty() && !scanWorker.isBusy()) {
+			sweepJob.clipTo(scanWindow);
+			scanWorker.submit(sweepJob);
+			sweepJob = null;
+		}
+	}
+
+	/**
+	 * Moves pending chunks into a job until the deadline, capturing each one
+	 * plus the margin its beds need for team detection and the defense flood
+	 * fill. Always moves at least one chunk.
+	 */
+	private void capturePendingChunks(World world, ScanWorker.Job job, long deadline) {
+		int margin = SNAPSHOT_MARGIN;
+		boolean first = true;
+		for (int slot = pendingChunks.firstSlot(); slot >= 0 && (first || System.nanoTime() < deadline);
+				slot = pendingChunks.nextSlot(slot - 1)) {
+			long key = pendingChunks.keyAt(slot);
+			pendingChunks.remove(key);
+			first = false;
+
+			int chunkX = (int) key;
+			int chunkZ = (int) (key >> 32);
+			job.chunksToIndex.add(key);
+			job.snapshot.captureArea(world, (chunkX << 4) - margin, (chunkZ << 4) - margin,
+					(chunkX << 4) + 15 + margin, (chunkZ << 4) + 15 + margin);
+		}
+	}
+
+	/**
+	 * Applies a result published by the background worker.
+	 *
+	 * Beds whose surroundings changed after the snapshot are not taken from
+	 * the result. A tracked one was already refreshed from the live world
+	 * (sync mode), or the change is still in the journal and the next job
+	 * refreshes it (async mode). A new one is checked against the live world,
+	 * so a bed broken while its job was running is not registered as a ghost.
+	 */
+	private void applyScanResult(World world, ScanWorker.Result result) {
+		// Tracking was reset after this job was captured
+		if (result.generation != scanGeneration) {
+			clearChangesSinceCapture();
+			return;
+		}
+
+		applyBreachResults(result);
+		if (result.failedJob != null) {
+			requeueFailedJob(result.failedJob);
+			clearChangesSinceCapture();
+			return;
+		}
+		failedJobs = 0;
+
+		for (BlockPos footPos : result.removedBeds) {
+			BedData bedData = findTrackedBed(footPos);
+			if (bedData != null && !changedSinceCapture(footPos)) {
+				removeBed(bedData);
+			}
+		}
+
+		for (ScanWorker.BedResult bed : result.beds) {
+			BedData bedData = findTrackedBed(bed.footPos);
+			boolean changed = changedSinceCapture(bed.footPos);
+			if (bedData == null) {
+				// The chunk may have unloaded while the worker was busy
+				if (bed.team == null || !loadedChunks.contains(chunkKey(bed.footPos))) continue;
+				boolean startup = bed.indexed || predictionHits.contains(PackedPos.pack(bed.footPos));
+				if (changed) {
+					IBlockState state = world.getBlockState(bed.footPos);
+					int meta = state.getBlock().getMetaFromState(state);
+					if (state.getBlock() == Blocks.bed && (meta & 8) == 0) {
+						onBedFootFound(world, bed.footPos, meta, startup);
 					}
+					continue;
 				}
+				bedData = registerBed(bed.footPos, bed.headPos, bed.team);
+				if (startup) {
+					noteStartupBed(bedData);
+				}
+			} else if (changed) {
+				continue;
 			}
+
+			bedData.defense.copyFrom(bed.defense);
+			bedData.obsidianBlocks = bed.obsidianBlocks;
+			bedData.neighbourhood = bed.neighbourhood;
+			updateEncasement(bed.footPos, bed.headPos, bed.fullyEncased);
 		}
+
+		rebuildCombinedSets();
+		clearChangesSinceCapture();
 	}
 
-	private void rebuildObsidianHighlights(World world) {
-		obsidianBlocks.clear();
+	/**
+	 * Forgets the changes kept for a finished job, unless a sweep is still
+	 * being captured and needs them for its own result.
+	 */
+	private void clearChangesSinceCapture() {
+		if (sweepJob == null) {
+			changedSinceCapture.clear();
+		}
+	}
+
+	/**
+	 * Takes over breach paths the worker searched. A path is dropped if its
+	 * region changed after the snapshot was taken, or if it was searched on
+	 * this thread meanwhile; it is still stale then, or already current.
+	 * A failed job returns no paths, so its beds are simply submitted again.
+	 */
+	private void applyBreachResults(ScanWorker.Result result) {
+		for (int i = 0; i < trackedBeds.size(); i++) {
+			BedData bedData = trackedBeds.get(i);
+			BreachPath searched = bedData.searchingBreach;
+			if (searched == null) continue;
+
+			if (!bedData.breachChangedWhileSearching && bedData.breach.isStale() &&
+					result.breachPaths.contains(searched)) {
+				bedData.breach = searched;
+			}
+			bedData.searchingBreach = null;
+		}
+	}
+
+	/**
+	 * Puts the work of a job the worker failed on back into the queues, so the
+	 * beds in its chunks are not dropped for good. After a few failures in a
+	 * row the work is abandoned rather than retried every tick.
+	 */
+	private void requeueFailedJob(ScanWorker.Job job) {
+		if (++failedJobs > MAX_FAILED_JOBS) {
+			vBedPlates.LOGGER.warn("Scan worker failed " + MAX_FAILED_JOBS + " times in a row; dropping " +
+					job.chunksToIndex.size() + " chunks and " + job.bedsToRefresh.size() + " bed refreshes");
+			failedJobs = 0;
+			return;
+		}
+
+		for (long key : job.chunksToIndex) {
+			if (loadedChunks.contains(key)) {
+				pendingChunks.add(key);
+			}
+		}
+		for (BlockPos pos : job.candidates) {
+			pendingCandidates.add(PackedPos.pack(pos));
+		}
+		for (BlockPos footPos : job.bedsToRefresh) {
+			if (findTrackedBed(footPos) != null) {
+				pendingRefreshes.add(footPos);
+			}
+		}
+	}
 
-		for (BedData bedData : trackedBeds) {
-			for (int x = -OBSIDIAN_SCAN_RADIUS; x <= OBSIDIAN_SCAN_RADIUS; x++) {
-				for (int y = 0; y <= OBSIDIAN_SCAN_RADIUS; y++) {
-					for (int z = -OBSIDIAN_SCAN_RADIUS; z <= OBSIDIAN_SCAN_RADIUS; z++) {
-						BlockPos checkPos = bedData.pos.add(x, y, z);
-						Block block = world.getBlockState(checkPos).getBlock();
-						if (block == Blocks.obsidian) {
-							obsidianBlocks.add(checkPos);
-						}
+	private BedData findTrackedBed(BlockPos footPos) {
+		for (int i = 0; i < trackedBeds.size(); i++) {
+			if (trackedBeds.get(i).pos.equals(footPos)) return trackedBeds.get(i);
+		}
+		return null;
+	}
+
+	/**
+	 * Passes this tick's block changes to every bed's breach path, then
+	 * re-runs the search for a few of the paths that went stale. With async
+	 * scanning on, stale paths are searched on the worker instead (see
+	 * submitAsyncScan); changes only mark searches in flight as outdated.
+	 */
+	private void updateBreachPaths(World world) {
+		if (!journal.isEmpty()) {
+			LongHashSet dirty = journal.getDirtyBlocks();
+			BlockView view = viewOf(world);
+			for (int i = 0; i < trackedBeds.size(); i++) {
+				BedData bedData = trackedBeds.get(i);
+				BreachPath breach = bedData.breach;
+				if (journal.rangeTouches(breach.getMinX(), breach.getMinY(), breach.getMinZ(),
+						breach.getMaxX(), breach.getMaxY(), breach.getMaxZ())) {
+					breach.invalidate();
+					bedData.breachChangedWhileSearching = true;
+					continue;
+				}
+
+				for (int slot = dirty.firstSlot(); slot >= 0; slot = dirty.nextSlot(slot)) {
+					long pos = dirty.keyAt(slot);
+					int x = PackedPos.getX(pos);
+					int y = PackedPos.getY(pos);
+					int z = PackedPos.getZ(pos);
+					if (breach.contains(x, y, z)) {
+						breach.onBlockChanged(x, y, z, view.getStateId(x, y, z));
+						bedData.breachChangedWhileSearching = true;
 					}
 				}
 			}
 		}
+
+		if (BedplateCommand.Config.asyncScanning) return;
+
+		int searches = 0;
+		for (int i = 0; i < trackedBeds.size(); i++) {
+			BreachPath breach = trackedBeds.get(i).breach;
+			if (!breach.isStale()) continue;
+
+			breachFinder.compute(breach, viewOf(world));
+			if (++searches >= BREACH_SEARCHES_PER_TICK) break;
+		}
+	}
+
+	/**
+	 * Adds a bed to every tracking structure.
+	 */
+	private BedData registerBed(BlockPos footPos, BlockPos headPos, BedTeam team) {
+		knownBeds.add(PackedPos.pack(footPos));
+		knownBeds.add(PackedPos.pack(headPos));
+
+		BedData bedData = new BedData(footPos, team);
+		bedData.headPos = headPos;
+		bedData.neighbourhood = new BedNeighbourhood(footPos, headPos);
+		bedData.breach = new BreachPath(footPos, headPos);
+		bedData.lastInWindowTick = currentTick;
+		trackedBeds.add(bedData);
+		return bedData;
+	}
+
+	/**
+	 * Collects a bed found by the initial index or the symmetry prediction.
+	 * A stored layout that does not predict it is forgotten. Without a stored
+	 * layout, the beds are learned once there is one per team and every team
+	 * was detected and distinct; otherwise nothing is learned this game.
+	 */
+	private void noteStartupBed(BedData bedData) {
+		if (currentMapConfig == null || currentTick > atlasLearnDeadline) return;
+
+		startupBeds.add(bedData);
+		if (atlasLayout != null) {
+			if (atlasPredicts(bedData)) return;
+
+			sendChat("§eKnown bed layout no longer matches — relearning");
+			BedAtlas.getInstance().forget(currentMapConfig);
+			atlasLayout = null;
+		}
+
+		int teamCount = currentMapConfig.getTeamCount();
+		if (startupBeds.size() < teamCount) return;
+
+		Set<BedTeam> teams = new HashSet<>();
+		List<BedAtlas.BedEntry> layout = new ArrayList<>();
+		for (BedData bed : startupBeds) {
+			if (bed.team != BedTeam.UNKNOWN) teams.add(bed.team);
+			layout.add(new BedAtlas.BedEntry(bed.pos, bed.headPos));
+		}
+		if (startupBeds.size() == teamCount && teams.size() == teamCount) {
+			BedAtlas.getInstance().learn(currentMapConfig, layout);
+			atlasLayout = layout;
+		}
+		atlasLearnDeadline = -1; // One attempt per game
 	}
 
-	public static boolean isDefenseBlock(Block block) {
-		return block == Blocks.end_stone ||
-				block == Blocks.obsidian ||
-				block == Blocks.glass ||
-				block == Blocks.stained_glass ||
-				block == Blocks.wool ||
-				block == Blocks.ladder ||
-				block == Blocks.planks ||
-				block == Blocks.log ||
-				block == Blocks.log2 ||
-				block == Blocks.packed_ice;
+	private boolean atlasPredicts(BedData bedData) {
+		for (BedAtlas.BedEntry entry : atlasLayout) {
+			if (entry.footX == bedData.pos.getX() && entry.footY == bedData.pos.getY() &&
+					entry.footZ == bedData.pos.getZ() && entry.facing == bedData.neighbourhood.facing) {
+				return true;
+			}
+		}
+		return false;
 	}
 
-	private BlockPos getOtherHalf(World world, BlockPos bedPos) {
-		Block bedBlock = world.getBlockState(bedPos).getBlock();
-		if (bedBlock != Blocks.bed) return null;
+	/**
+	 * Registers a newly found bed foot block and caches its surroundings.
+	 *
+	 * @param fromInitialScan whether the initial index or the symmetry prediction found it
+	 */
+	private void onBedFootFound(World world, BlockPos footPos, int meta, boolean fromInitialScan) {
+		if (knownBeds.contains(PackedPos.pack(footPos))) return;
+
+		// Create bed data, then read its neighbourhood once for surroundings,
+		// initial encasement state and team color
+		BedData bedData = registerBed(footPos, BedAnalyzer.getHeadPos(footPos, meta), BedTeam.UNKNOWN);
+		refreshBed(world, bedData);
+		int obsidianBefore = obsidianBlocks.size();
+		obsidianBlocks.addAll(bedData.obsidianBlocks);
+		if (obsidianBlocks.size() != obsidianBefore) {
+			obsidianRevision++;
+		}
 
-		int meta = world.getBlockState(bedPos).getBlock().getMetaFromState(world.getBlockState(bedPos));
-		int direction = meta & 3;
+		BedTeam team = TeamDetector.teamFromColorCounts(colorCounts);
+		bedData.team = team;
+		if (fromInitialScan) {
+			noteStartupBed(bedData);
+		}
 
-		switch (direction) {
-			case 0: return bedPos.south();
-			case 1: return bedPos.west();
-			case 2: return bedPos.north();
-			case 3: return bedPos.east();
-			default: return null;
+		String teamInfo = (team != BedTeam.UNKNOWN)
+				? " " + TeamDetector.getTeamIcon(team)
+				: "";
+		//sendChat("§aFound bed" + teamInfo + " §7at §f" + footPos.getX() + " " + footPos.getY() + " " + footPos.getZ());
+	}
+
+	/**
+	 * Stops tracking a bed that no longer exists and drops its cached surroundings.
+	 */
+	private void removeBed(BedData bedData) {
+		trackedBeds.remove(bedData);
+		knownBeds.remove(PackedPos.pack(bedData.pos));
+		knownBeds.remove(PackedPos.pack(bedData.headPos));
+		fullyEncasedBeds.remove(PackedPos.pack(bedData.pos));
+		fullyEncasedBeds.remove(PackedPos.pack(bedData.headPos));
+	}
+
+	/**
+	 * Re-reads the neighbourhood of a single bed once, updating its defense
+	 * types, obsidian positions and the team color histogram, and re-checks
+	 * encasement if obsidian appeared or vanished. The bed's sets are reused.
+	 */
+	private void refreshBed(World world, BedData bedData) {
+		bedData.obsidianBlocks.clear();
+		if (BedAnalyzer.analyze(viewOf(world), bedData.neighbourhood, floodFill,
+				bedData.defense, bedData.obsidianBlocks, colorCounts)) {
+			updateEncasement(bedData.pos, bedData.headPos, bedData.neighbourhood.isFullyEncased());
 		}
 	}
 
-	private boolean isBedHalfEncased(World world, BlockPos pos) {
-		Block block = world.getBlockState(pos).getBlock();
-		if (block != Blocks.bed) return false;
+	/**
+	 * Returns a view of the live world, reused while the world stays the same.
+	 */
+	private BlockView viewOf(World world) {
+		if (worldView == null || worldView.getWorld() != world) {
+			worldView = new WorldBlockView(world);
+		}
+		return worldView;
+	}
 
-		int meta = block.getMetaFromState(world.getBlockState(pos));
-		int dir = meta & 3;
-		boolean isHead = (meta & 8) != 0;
+	/**
+	 * Rebuilds the combined obsidian set from the per-bed data. The revision
+	 * is only bumped if the result differs, so a refresh that found the same
+	 * obsidian does not make the snapshot copy and the renderer re-mesh it.
+	 */
+	private void rebuildCombinedSets() {
+		LongHashSet rebuilt = rebuiltObsidian;
+		rebuilt.clear();
+		for (int i = 0; i < trackedBeds.size(); i++) {
+			rebuilt.addAll(trackedBeds.get(i).obsidianBlocks);
+		}
 
-		BlockPos otherHalfPos;
-		switch (dir) {
-			case 0:  otherHalfPos = isHead ? pos.north() : pos.south(); break;
-			case 1:  otherHalfPos = isHead ? pos.east()  : pos.west();  break;
-			case 2:  otherHalfPos = isHead ? pos.south() : pos.north(); break;
-			case 3:  otherHalfPos = isHead ? pos.west()  : pos.east();  break;
-			default: otherHalfPos = null;
+		// Same size and every rebuilt key already present means the same set
+		boolean changed = rebuilt.size() != obsidianBlocks.size();
+		for (int slot = rebuilt.firstSlot(); !changed && slot >= 0; slot = rebuilt.nextSlot(slot)) {
+			changed = !obsidianBlocks.contains(rebuilt.keyAt(slot));
 		}
+		if (!changed) return;
 
-		BlockPos[] sides = {
-				pos.north(),
-				pos.south(),
-				pos.east(),
-				pos.west(),
-				pos.up()
-		};
+		rebuiltObsidian = obsidianBlocks;
+		obsidianBlocks = rebuilt;
+		obsidianRevision++;
+	}
 
-		for (BlockPos side : sides) {
-			if (otherHalfPos != null && side.equals(otherHalfPos)) continue;
+	/**
+	 * Publishes a new snapshot if anything the snapshot covers changed since
+	 * the last one. Beds whose data is unchanged are carried over as they are.
+	 */
+	private void publishSnapshot() {
+		TrackingSnapshot current = snapshot;
+		boolean changed = current.beds.size() != trackedBeds.size() || current.obsidianRevision != obsidianRevision;
+		for (int i = 0; !changed && i < trackedBeds.size(); i++) {
+			changed = !isUpToDate(current.beds.get(i), trackedBeds.get(i));
+		}
+		if (!changed) return;
+
+		List<TrackingSnapshot.Bed> beds = new ArrayList<>(trackedBeds.size());
+		for (int i = 0; i < trackedBeds.size(); i++) {
+			BedData bedData = trackedBeds.get(i);
+			TrackingSnapshot.Bed previous = i < current.beds.size() ? current.beds.get(i) : null;
+			if (previous != null && isUpToDate(previous, bedData)) {
+				beds.add(previous);
+			} else {
+				// Render geometry only depends on the position and which types are present
+				BedRenderGeometry geometry = previous != null && previous.footPos.equals(bedData.pos) &&
+						previous.defenseMask == bedData.defense.getMask() ? previous.geometry :
+						new BedRenderGeometry(bedData.pos, bedData.headPos, bedData.defense.getMask());
+				beds.add(new TrackingSnapshot.Bed(bedData.pos, bedData.headPos, bedData.team, bedData.defense,
+						fullyEncasedBeds.contains(PackedPos.pack(bedData.pos)), bedData.breach, geometry));
+			}
+		}
 
-			Block neighbor = world.getBlockState(side).getBlock();
-			if (neighbor != Blocks.obsidian) {
-				return false;
+		// Obsidian positions are copied only when the combined set was rebuilt
+		if (current.obsidianRevision != obsidianRevision) {
+			publishedObsidian = new long[obsidianBlocks.size()];
+			int i = 0;
+			for (int slot = obsidianBlocks.firstSlot(); slot >= 0; slot = obsidianBlocks.nextSlot(slot)) {
+				publishedObsidian[i++] = obsidianBlocks.keyAt(slot);
 			}
 		}
-		return true;
+
+		snapshot = new TrackingSnapshot(current.version + 1, beds, publishedObsidian, obsidianRevision);
 	}
 
-	private void checkFullBedEncasement(World world, BlockPos bedPos) {
-		BlockPos otherHalf = getOtherHalf(world, bedPos);
-		if (otherHalf == null) {
-			return;
+	private boolean isUpToDate(TrackingSnapshot.Bed published, BedData bedData) {
+		BreachPath breach = bedData.breach;
+		return published.footPos.equals(bedData.pos) &&
+				published.team == bedData.team &&
+				published.defenseVersion == bedData.defense.getVersion() &&
+				published.fullyEncased == fullyEncasedBeds.contains(PackedPos.pack(bedData.pos)) &&
+				published.breachVersion == (breach.isStale() ? -1 : breach.getVersion());
+	}
+
+	/**
+	 * The latest published snapshot. Safe to read from any thread.
+	 */
+	public static TrackingSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	private static long chunkKey(BlockPos pos) {
+		return ChunkCoordIntPair.chunkXZ2Int(pos.getX() >> 4, pos.getZ() >> 4);
+	}
+
+	private void sendChat(String msg) {
+		Minecraft mc = Minecraft.getMinecraft();
+		if (mc.thePlayer != null) {
+			mc.thePlayer.addChatMessage(new ChatComponentText("[§avBedplate§f] " + msg));
 		}
+	}
 
-		boolean half1 = isBedHalfEncased(world, bedPos);
-		boolean half2 = isBedHalfEncased(world, otherHalf);
-		boolean fullyEncased = half1 && half2;
-		boolean wasEncased = fullyEncasedBeds.contains(bedPos) || fullyEncasedBeds.contains(otherHalf);
-		fullyEncasedBeds.remove(bedPos);
-		fullyEncasedBeds.remove(otherHalf);
+	/**
+	 * Records the encasement state of a bed and notifies when it changes.
+	 */
+	private void updateEncasement(BlockPos bedPos, BlockPos otherHalf, boolean fullyEncased) {
+		long bedKey = PackedPos.pack(bedPos);
+		long otherKey = PackedPos.pack(otherHalf);
+		boolean wasEncased = fullyEncasedBeds.contains(bedKey) || fullyEncasedBeds.contains(otherKey);
 
 		if (fullyEncased && !wasEncased) {
-			fullyEncasedBeds.add(bedPos);
-			fullyEncasedBeds.add(otherHalf);
+			fullyEncasedBeds.add(bedKey);
+			fullyEncasedBeds.add(otherKey);
 			if (BedplateCommand.Config.fullObsidianNotifs) {
 				sendChat("§8Bed fully encased in obsidian! §7at §f" +
 						bedPos.getX() + " " + bedPos.getY() + " " + bedPos.getZ());
 			}
 
 		} else if (!fullyEncased && wasEncased) {
-			fullyEncasedBeds.remove(bedPos);
-			fullyEncasedBeds.remove(otherHalf);
+			fullyEncasedBeds.remove(bedKey);
+			fullyEncasedBeds.remove(otherKey);
 			if (BedplateCommand.Config.fullObsidianNotifs){
 				sendChat("§8No more full obby :D §7at §f" +
 						bedPos.getX() + " " + bedPos.getY() + " " + bedPos.getZ());
@@ -449,20 +1298,20 @@ public class BedScanner {
 		}
 	}
 
-	public Set<BlockPos> getKnownBeds() {
-		return this.knownBeds;
-	}
-
-	public Set<BlockPos> getObsidianBlocks() {
-		return this.obsidianBlocks;
-	}
-
 	/**
 	 * Enhanced BedData with team information
 	 */
 	public static class BedData {
 		public BlockPos pos;
-		public Set<Block> defenseBlocks = new HashSet<>();
+		public BlockPos headPos;
+		public final long chunkKey; // Chunk of the foot, as in ChunkCoordIntPair.chunkXZ2Int
+		public long lastInWindowTick;
+		public BedNeighbourhood neighbourhood;
+		public BreachPath breach; // Cheapest way in, kept current by updateBreachPaths
+		public BreachPath searchingBreach; // Copy being searched on the worker, null if none
+		public boolean breachChangedWhileSearching; // Region changed after searchingBreach was captured
+		public final DefenseComposition defense = new DefenseComposition();
+		public LongHashSet obsidianBlocks = new LongHashSet(); // PackedPos keys
 		public BedTeam team;
 
 		public BedData(BlockPos pos) {
@@ -471,20 +1320,8 @@ public class BedScanner {
 
 		public BedData(BlockPos pos, BedTeam team) {
 			this.pos = pos;
+			this.chunkKey = chunkKey(pos);
 			this.team = team;
 		}
-
-		public ItemStack[] getDefenseItems() {
-			ItemStack[] stacks = new ItemStack[defenseBlocks.size()];
-			int i = 0;
-			for (Block block : defenseBlocks) {
-				stacks[i++] = new ItemStack(block);
-			}
-			return stacks;
-		}
-	}
-
-	public static List<BedData> getTrackedBeds() {
-		return trackedBeds;
 	}
 }
@@ -1,62 +1,117 @@
 package com.adam.vBedPlates.events;
 
 import net.minecraftforge.client.event.RenderWorldLastEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraft.client.renderer.block.model.ItemCameraTransforms;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.entity.EntityPlayerSP;
 import net.minecraft.client.renderer.*;
+import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.client.renderer.entity.RenderItem;
 import net.minecraft.item.ItemStack;
-import net.minecraft.util.BlockPos;
-import net.minecraft.world.World;
-import net.minecraft.block.Block;
-import net.minecraft.init.Blocks;
+import net.minecraft.util.ChatComponentText;
 import org.lwjgl.opengl.GL11;
 
 import com.adam.vBedPlates.commands.BedplateCommand;
+import com.adam.vBedPlates.scan.DefenseComposition;
+import com.adam.vBedPlates.util.AllocationProbe;
+import com.adam.vBedPlates.util.PackedPos;
 
-import java.util.List;
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * BedplateRender - Renders billboard UI above beds showing defense block types
  * and highlights obsidian blocks with ESP wireframes.
+ *
+ * Once icon strips and obsidian geometry are cached, a frame allocates
+ * nothing: beds are walked by index, layouts come from BedRenderGeometry and
+ * scratch arrays are reused. FRAME_PROBE checks this on demand.
  */
 public class BedplateRender {
 
+	/**
+	 * Measures allocation per frame; armed by /bedplate allocs.
+	 */
+	public static final AllocationProbe FRAME_PROBE = new AllocationProbe();
+
 	// Visual constants
 	private static final float BILLBOARD_BASE_SCALE = 0.05F; // Base multiplier for distance-based scaling (adjust for size)
 	private static final float BILLBOARD_SCALE_MIN = 1.5F; // Minimum scale when very close
 	private static final float BILLBOARD_SCALE_MAX = 5.0F; // Maximum scale when very far
-	private static final float ITEM_SCALE = 0.45F;
-	private static final double BILLBOARD_HEIGHT_OFFSET = 2.5;
-	private static final double OBSIDIAN_RENDER_DISTANCE = 50.0;
+	static final float ITEM_SCALE = 0.45F;
 	private static final double BILLBOARD_MIN_DISTANCE = 2.0; // Don't render if closer than this
+	private static final float ESP_LINE_WIDTH = 2.0F; // Bed outlines and obsidian share one state setup
+	private static final double SWATCH_SIZE = 0.3; // Billboard units
+	private static final double TEAM_BAR_HEIGHT = 0.08;
+	private static final double CHIP_HALF_SIZE = 0.2;
 
 	// Colors - Glassy gray background
 	private static final float BOX_COLOR_R = 0.3F;
 	private static final float BOX_COLOR_G = 0.3F;
 	private static final float BOX_COLOR_B = 0.3F;
 	private static final float BOX_ALPHA = 0.65F; // Less opaque for better visibility
+	private static final int BOX_RGB = 0x4C4C4C; // The same grey, for batched billboards
 
 	private final Minecraft mc = Minecraft.getMinecraft();
-	private final BedScanner scanner;
+	private final ObsidianEspCache obsidianEsp = new ObsidianEspCache();
+	private final BillboardIconCache iconCache;
+	private final Frustum frustum;
+
+	// Billboard axes in world space for this frame, so flat billboards can share one draw
+	private double rightX, rightZ;
+	private double upX, upY, upZ;
+
+	// Billboards picked for this frame, their distances and icon strip slots; lodCount of them are batched
+	private int billboardCount = 0;
+	private TrackingSnapshot.Bed[] billboardBeds = new TrackingSnapshot.Bed[16];
+	private double[] billboardDistances = new double[16];
+	private int[] billboardStrips = new int[16];
+	private int lodCount = 0;
+
+	// Billboard detail by distance, see lodTier
+	private static final int TIER_ICONS = 0; // Full billboard with item icons
+	private static final int TIER_SWATCHES = 1; // Batched box with a colour swatch per defense type
+	private static final int TIER_CHIP = 2; // Batched team-coloured chip
+
+	public BedplateRender() {
+		// Shares vanilla's clipping helper, which vanilla refreshes every frame before we render. The
+		// constructor re-reads the current matrices into it, so it must not run inside our translate.
+		this(new Frustum(), new BillboardIconCache(ITEM_SCALE));
+	}
 
-	public BedplateRender(BedScanner scanner) {
-		this.scanner = scanner;
+	/**
+	 * Renderer culling against the given frustum and drawing icons through the
+	 * given cache, e.g. a frustum with fixed planes in tests.
+	 */
+	BedplateRender(Frustum frustum, BillboardIconCache iconCache) {
+		this.frustum = frustum;
+		this.iconCache = iconCache;
 	}
 
 	@SubscribeEvent
 	public void onRenderWorldLast(RenderWorldLastEvent event) {
 		if (mc.theWorld == null || mc.thePlayer == null) return;
 
-		EntityPlayerSP player = mc.thePlayer;
-		World world = mc.theWorld;
-		double partialTicks = event.partialTicks;
+		FRAME_PROBE.begin();
+		renderFrame(event.partialTicks);
+		if (FRAME_PROBE.end()) {
+			reportFrameProbe();
+		}
+	}
 
+	@SubscribeEvent
+	public void onWorldUnload(WorldEvent.Unload event) {
+		// Icon strips hold GL framebuffers; free them rather than keep them across worlds
+		if (event.world.isRemote) {
+			iconCache.clear();
+		}
+	}
+
+	private void renderFrame(double partialTicks) {
+		EntityPlayerSP player = mc.thePlayer;
 		double camX = player.lastTickPosX + (player.posX - player.lastTickPosX) * partialTicks;
 		double camY = player.lastTickPosY + (player.posY - player.lastTickPosY) * partialTicks;
 		double camZ = player.lastTickPosZ + (player.posZ - player.lastTickPosZ) * partialTicks;
@@ -64,120 +119,138 @@ public class BedplateRender {
 		GlStateManager.pushMatrix();
 		GlStateManager.translate(-camX, -camY, -camZ);
 
-		List<BedScanner.BedData> beds = BedScanner.getTrackedBeds();
-		if (beds != null && (BedplateCommand.Config.showBillboards || BedplateCommand.Config.showBedOutlines)) {
-			for (BedScanner.BedData bed : beds) {
-				if (bed == null || bed.pos == null) continue;
+		// Read the published state once; it cannot change under us during the frame
+		TrackingSnapshot state = BedScanner.getSnapshot();
 
-				// Draw the lower-half red outline (if enabled)
-				if (BedplateCommand.Config.showBedOutlines) {
-					drawBedOutline(world, bed.pos);
-				}
+		frustum.setPosition(camX, camY, camZ);
 
-				// Draw the billboard with items (if enabled)
-				if (BedplateCommand.Config.showBillboards) {
-					drawBedplateBillboard(world, bed);
-				}
+		// All wireframes share one line width and one state setup
+		boolean drawOutlines = BedplateCommand.Config.showBedOutlines && !state.beds.isEmpty();
+		boolean drawObsidian = BedplateCommand.Config.showObsidianESP && state.getObsidianCount() > 0;
+		if (drawOutlines || drawObsidian) {
+			setupLineState();
+
+			// Lower-half red outline of every bed, in one draw
+			if (drawOutlines) {
+				Tessellator tess = Tessellator.getInstance();
+				WorldRenderer wr = tess.getWorldRenderer();
+				wr.begin(GL11.GL_LINES, DefaultVertexFormats.POSITION_COLOR);
+				addBedOutlines(wr, state, camX, camY, camZ);
+				tess.draw();
 			}
+
+			// Obsidian ESP highlights with distance culling and fade, compiled once per change
+			if (drawObsidian) {
+				obsidianEsp.render(state, frustum, camX, camY, camZ, BedplateCommand.Config.obsidianRenderDistance,
+						0.6f, 0.0f, 0.8f);
+			}
+
+			restoreLineState();
 		}
 
-		// Obsidian ESP highlights with distance culling and fade (if enabled)
-		if (BedplateCommand.Config.showObsidianESP && scanner != null) {
-			for (BlockPos obPos : scanner.getObsidianBlocks()) {
-				// Calculate squared distance for efficiency (avoid sqrt)
-				double dx = obPos.getX() + 0.5 - camX;
-				double dy = obPos.getY() + 0.5 - camY;
-				double dz = obPos.getZ() + 0.5 - camZ;
-				double distSq = dx * dx + dy * dy + dz * dz;
-
-				// Only render if within distance
-				if (distSq <= OBSIDIAN_RENDER_DISTANCE * OBSIDIAN_RENDER_DISTANCE) {
-					// Calculate alpha based on distance (fade effect)
-					float alpha = 1.0f - (float)(Math.sqrt(distSq) / OBSIDIAN_RENDER_DISTANCE);
-					alpha = Math.max(0.3f, alpha); // Don't go fully transparent
-
-					drawOutlinedWireCube(obPos.getX(), obPos.getY(), obPos.getZ(),
-							1.0, 1.0, 1.0, 0.6f, 0.0f, 0.8f, alpha);
+		// Billboards, with less detail the further away they are (if enabled)
+		if (BedplateCommand.Config.showBillboards) {
+			selectBillboards(state, camX, camY, camZ);
+
+			// Icons are only readable up close; further beds are batched into one draw
+			for (int i = 0; i < billboardCount; i++) {
+				if (lodTier(billboardDistances[i]) == TIER_ICONS) {
+					drawBedplateBillboard(billboardBeds[i], billboardDistances[i], billboardStrips[i]);
 				}
 			}
+			if (lodCount > 0) {
+				drawLodBillboards();
+			}
+
+			Arrays.fill(billboardBeds, 0, billboardCount, null); // Don't keep old snapshots alive
 		}
 
 		GlStateManager.popMatrix();
 	}
 
 	/**
-	 * Draw the red wireframe prism for the bed aligned to the lower half (1 x 0.5 x 2)
+	 * Adds the lower-half outline of every bed in range and in view to a
+	 * GL_LINES POSITION_COLOR buffer. Touches no GL state.
+	 *
+	 * @return the number of outlines added
 	 */
-	private void drawBedOutline(World world, BlockPos footPos) {
-		if (!BedplateCommand.Config.showBedOutlines) return; // Early exit if disabled
-		if (world.getBlockState(footPos).getBlock() != Blocks.bed) return;
-
-		int meta = world.getBlockState(footPos).getBlock().getMetaFromState(world.getBlockState(footPos));
-		int dir = meta & 3;
-
-		BlockPos headPos;
-		switch (dir) {
-			case 0: headPos = footPos.south(); break;
-			case 1: headPos = footPos.west();  break;
-			case 2: headPos = footPos.north(); break;
-			case 3: headPos = footPos.east();  break;
-			default: headPos = footPos.south(); break;
+	int addBedOutlines(WorldRenderer wr, TrackingSnapshot state, double camX, double camY, double camZ) {
+		double outlineDistSq = square(BedplateCommand.Config.outlineRenderDistance);
+		int added = 0;
+		for (int i = 0; i < state.beds.size(); i++) {
+			BedRenderGeometry geometry = state.beds.get(i).geometry;
+			if (!isInView(geometry.outlineMinX, geometry.outlineMinY, geometry.outlineMinZ,
+					geometry.outlineMinX + geometry.outlineWidth, geometry.outlineMinY + geometry.outlineHeight,
+					geometry.outlineMinZ + geometry.outlineDepth, camX, camY, camZ, outlineDistSq)) {
+				continue;
+			}
+			addWireframePrism(wr, geometry.outlineMinX, geometry.outlineMinY, geometry.outlineMinZ,
+					geometry.outlineWidth, geometry.outlineHeight, geometry.outlineDepth,
+					1.0F, 0.0F, 0.0F, 1.0F);
+			added++;
 		}
+		return added;
+	}
 
-		double minX = Math.min(footPos.getX(), headPos.getX());
-		double minZ = Math.min(footPos.getZ(), headPos.getZ());
-		double width = Math.abs(headPos.getX() - footPos.getX()) + 1.0;
-		double depth = Math.abs(headPos.getZ() - footPos.getZ()) + 1.0;
+	/**
+	 * Picks this frame's billboards: beds in range and in view, except those
+	 * too close to read, and looks up the cached icon strip of each close one.
+	 * Only culls, measures and looks up, so it never touches GL.
+	 *
+	 * @return the number of billboards picked
+	 */
+	int selectBillboards(TrackingSnapshot state, double camX, double camY, double camZ) {
+		double billboardDistSq = square(BedplateCommand.Config.billboardRenderDistance);
+		billboardCount = 0;
+		lodCount = 0;
+		for (int i = 0; i < state.beds.size(); i++) {
+			TrackingSnapshot.Bed bed = state.beds.get(i);
+			// The billboard grows with distance up to BILLBOARD_SCALE_MAX, so cull on its largest size
+			BedRenderGeometry geometry = bed.geometry;
+			double reach = geometry.halfWidth * BILLBOARD_SCALE_MAX;
+			if (!isInView(geometry.anchorX - reach, geometry.anchorY - reach, geometry.anchorZ - reach,
+					geometry.anchorX + reach, geometry.anchorY + reach, geometry.anchorZ + reach,
+					camX, camY, camZ, billboardDistSq)) {
+				continue;
+			}
 
-		double prismHeight = 0.5;
-		double y = footPos.getY() + 0.25 + 0.01;
+			double dx = geometry.anchorX - camX;
+			double dy = geometry.anchorY - camY;
+			double dz = geometry.anchorZ - camZ;
+			double dist = Math.sqrt(dx * dx + dy * dy + dz * dz);
+			if (dist < BILLBOARD_MIN_DISTANCE) continue; // Skip rendering when very close
+
+			addBillboard(bed, dist);
+			if (lodTier(dist) == TIER_ICONS) {
+				billboardStrips[billboardCount - 1] = iconCache.slotOf(bed.defenseMask);
+			} else {
+				lodCount++;
+			}
+		}
+		return billboardCount;
+	}
 
-		drawWireframePrism(minX, y, minZ, width, prismHeight, depth,
-				1.0F, 0.0F, 0.0F, 1.0F);
+	/**
+	 * Level of detail for a billboard at a distance.
+	 */
+	private static int lodTier(double distance) {
+		if (distance < BedplateCommand.Config.billboardIconDistance) return TIER_ICONS;
+		return distance < BedplateCommand.Config.billboardSwatchDistance ? TIER_SWATCHES : TIER_CHIP;
 	}
 
 	/**
 	 * Draw a billboard centered above the bed showing a gradient grey box with item icons.
 	 * Box maintains constant on-screen size; icons are drawn at a fixed readable size.
 	 */
-	private void drawBedplateBillboard(World world, BedScanner.BedData bed) {
-		if (!BedplateCommand.Config.showBillboards) return; // Early exit if disabled
-		if (bed == null || bed.pos == null) return;
-
-		// Find head to compute center between halves
-		BlockPos foot = bed.pos;
-		BlockPos head = null;
-		if (world.getBlockState(foot).getBlock() == Blocks.bed) {
-			int meta = world.getBlockState(foot).getBlock().getMetaFromState(world.getBlockState(foot));
-			int dir = meta & 3;
-			switch (dir) {
-				case 0: head = foot.south(); break;
-				case 1: head = foot.west();  break;
-				case 2: head = foot.north(); break;
-				case 3: head = foot.east();  break;
-				default: head = foot.south(); break;
-			}
-		} else {
-			head = foot;
-		}
-
-		// Center between foot and head (in XZ)
-		double centerX = (foot.getX() + head.getX()) / 2.0 + 0.5;
-		double centerZ = (foot.getZ() + head.getZ()) / 2.0 + 0.5;
-		double centerY = foot.getY() + BILLBOARD_HEIGHT_OFFSET;
-
-		// Check distance - don't render if too close
-		double distToBillboard = mc.thePlayer.getDistance(centerX, centerY, centerZ);
-		if (distToBillboard < BILLBOARD_MIN_DISTANCE) {
-			return; // Skip rendering when very close
-		}
+	private void drawBedplateBillboard(TrackingSnapshot.Bed bed, double distToBillboard, int strip) {
+		BedRenderGeometry geometry = bed.geometry;
+		double centerX = geometry.anchorX;
+		double centerY = geometry.anchorY;
+		double centerZ = geometry.anchorZ;
 
-		// Calculate box size based on number of defense blocks (dynamic)
-		int count = (bed.defenseBlocks == null) ? 0 : bed.defenseBlocks.size();
-		double boxWidth = Math.max(0.9, Math.min(3.2, 0.9 + 0.35 * count));
-		double boxHeight = 0.5;
-		double halfW = boxWidth / 2.0;
-		double halfH = boxHeight / 2.0;
+		// Box size and icon layout were computed when the bed was published
+		double halfW = geometry.halfWidth;
+		double halfH = geometry.halfHeight;
 
 		// Save and set state for billboard
 		GlStateManager.pushMatrix();
@@ -189,12 +262,7 @@ public class BedplateRender {
 		GlStateManager.rotate(-pvYaw, 0.0F, 1.0F, 0.0F);
 		GlStateManager.rotate(pvPitch, 1.0F, 0.0F, 0.0F);
 
-		// Distance-based scaling to maintain constant on-screen size
-		// Scale grows with distance so it appears same size on screen
-		float scale = (float)(BILLBOARD_BASE_SCALE * distToBillboard);
-		// Clamp between min/max to prevent extreme sizes
-		scale = Math.max(BILLBOARD_SCALE_MIN, Math.min(BILLBOARD_SCALE_MAX, scale));
-
+		float scale = billboardScale(distToBillboard);
 		GlStateManager.scale(scale, scale, scale);
 
 		// Draw the glassy gray background using raw GL11 calls
@@ -243,85 +311,248 @@ public class BedplateRender {
 
 		GlStateManager.enableCull();
 
-		// Draw item icons inside the box (using 3D renderer but flattened)
-		if (bed.defenseBlocks != null && !bed.defenseBlocks.isEmpty()) {
-			List<Block> blocks = new ArrayList<>(bed.defenseBlocks);
-			int itemCount = blocks.size();
+		// Draw item icons inside the box: one cached strip per defense combination
+		if (geometry.iconCount > 0) {
+			if (iconCache.isSupported()) {
+				iconCache.drawIcons(strip, bed.defenseMask, geometry);
+			} else {
+				drawIconsDirect(geometry);
+			}
+		}
+
+		// Restore GL state
+		GlStateManager.enableTexture2D();
+		GlStateManager.enableDepth();
+		GlStateManager.disableBlend();
+		GlStateManager.enableLighting();
+
+		GlStateManager.popMatrix();
+	}
+
+	private void reportFrameProbe() {
+		String result = FRAME_PROBE.getAllocatingSamples() + "/" + FRAME_PROBE.getSamples() +
+				" frames allocated, " + FRAME_PROBE.getTotalBytes() + " bytes total, " +
+				FRAME_PROBE.getMaxBytes() + " max";
+		mc.thePlayer.addChatMessage(new ChatComponentText("[§avBedplate§f] " +
+				(FRAME_PROBE.getAllocatingSamples() == 0 ? "§a" : "§e") + "Render allocation: §f" + result));
+		System.out.println("[Bedplate] Render allocation: " + result);
+	}
+
+	/**
+	 * Distance-based scaling to maintain constant on-screen size. Scale grows
+	 * with distance so it appears same size on screen, clamped between
+	 * min/max to prevent extreme sizes.
+	 */
+	private static float billboardScale(double distance) {
+		float scale = (float) (BILLBOARD_BASE_SCALE * distance);
+		return Math.max(BILLBOARD_SCALE_MIN, Math.min(BILLBOARD_SCALE_MAX, scale));
+	}
+
+	private void addBillboard(TrackingSnapshot.Bed bed, double distance) {
+		if (billboardCount == billboardBeds.length) {
+			TrackingSnapshot.Bed[] beds = new TrackingSnapshot.Bed[billboardCount * 2];
+			double[] distances = new double[billboardCount * 2];
+			int[] strips = new int[billboardCount * 2];
+			System.arraycopy(billboardBeds, 0, beds, 0, billboardCount);
+			System.arraycopy(billboardDistances, 0, distances, 0, billboardCount);
+			System.arraycopy(billboardStrips, 0, strips, 0, billboardCount);
+			billboardBeds = beds;
+			billboardDistances = distances;
+			billboardStrips = strips;
+		}
+		billboardBeds[billboardCount] = bed;
+		billboardDistances[billboardCount] = distance;
+		billboardCount++;
+	}
+
+	/**
+	 * Draws every mid- and far-range billboard as flat coloured quads in a
+	 * single draw, see addLodBillboards.
+	 */
+	private void drawLodBillboards() {
+		Tessellator tess = Tessellator.getInstance();
+		WorldRenderer wr = tess.getWorldRenderer();
+		wr.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+		addLodBillboards(wr, mc.getRenderManager().playerViewY, mc.getRenderManager().playerViewX);
+
+		GlStateManager.disableTexture2D();
+		GlStateManager.disableLighting();
+		GlStateManager.enableBlend();
+		GlStateManager.tryBlendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, 1, 0);
+		GlStateManager.disableDepth();
+		GlStateManager.disableCull();
+		tess.draw();
+		GlStateManager.enableCull();
+		GlStateManager.enableDepth();
+		GlStateManager.disableBlend();
+		GlStateManager.enableTexture2D();
+		GlStateManager.enableLighting();
+	}
+
+	/**
+	 * Adds this frame's mid- and far-range billboards to a GL_QUADS
+	 * POSITION_COLOR buffer. Mid-range beds get the grey box with one swatch
+	 * per defense type and a team-coloured bar; far beds just a team chip.
+	 * The quads are turned to face the camera on the CPU instead of with a
+	 * matrix per bed. Touches no GL state.
+	 *
+	 * @return the number of billboards added
+	 */
+	int addLodBillboards(WorldRenderer wr, float viewYaw, float viewPitch) {
+		// Same rotations as the full billboard: yaw about Y, then pitch about X
+		double yaw = Math.toRadians(-viewYaw);
+		double pitch = Math.toRadians(viewPitch);
+		rightX = Math.cos(yaw);
+		rightZ = -Math.sin(yaw);
+		upX = Math.sin(pitch) * Math.sin(yaw);
+		upY = Math.cos(pitch);
+		upZ = Math.sin(pitch) * Math.cos(yaw);
+
+		int added = 0;
+		for (int i = 0; i < billboardCount; i++) {
+			TrackingSnapshot.Bed bed = billboardBeds[i];
+			int tier = lodTier(billboardDistances[i]);
+			if (tier == TIER_ICONS) continue;
+
+			double scale = billboardScale(billboardDistances[i]);
+			if (tier == TIER_SWATCHES) {
+				addSwatchStrip(wr, bed, scale);
+			} else {
+				addBillboardQuad(wr, bed.geometry, scale, -CHIP_HALF_SIZE, -CHIP_HALF_SIZE,
+						CHIP_HALF_SIZE, CHIP_HALF_SIZE, bed.team.rgb, 0.9F);
+			}
+			added++;
+		}
+		return added;
+	}
 
-			// Layout: evenly spaced horizontally with padding
-			double totalWidth = boxWidth * 0.9;
-			double iconSpacing = totalWidth / Math.max(1, itemCount);
-			double startX = - (totalWidth / 2.0) + iconSpacing / 2.0;
+	private void addSwatchStrip(WorldRenderer wr, TrackingSnapshot.Bed bed, double scale) {
+		BedRenderGeometry geometry = bed.geometry;
+		double halfW = geometry.halfWidth;
+		double halfH = geometry.halfHeight;
+
+		// Background first; with depth off, later quads land on top
+		addBillboardQuad(wr, geometry, scale, -halfW, -halfH, halfW, halfH, BOX_RGB, BOX_ALPHA);
+		addBillboardQuad(wr, geometry, scale, -halfW, halfH - TEAM_BAR_HEIGHT, halfW, halfH, bed.team.rgb, 0.9F);
+
+		double half = SWATCH_SIZE / 2.0;
+		double centreY = -TEAM_BAR_HEIGHT / 2.0;
+		for (int i = 0; i < geometry.iconCount; i++) {
+			// Billboard +x shows on the viewer's left, like the icons
+			double x = geometry.getIconX(i);
+			addBillboardQuad(wr, geometry, scale, x - half, centreY - half, x + half, centreY + half,
+					DefenseComposition.getSwatchColor(geometry.getIconType(i)), 1.0F);
+		}
+	}
 
-			// Prepare item rendering
-			GlStateManager.enableTexture2D();
-			GlStateManager.enableRescaleNormal();
-			RenderHelper.enableGUIStandardItemLighting();
-			GlStateManager.enableBlend();
-			GlStateManager.tryBlendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, 1, 0);
-			GlStateManager.disableDepth(); // Force items to render flat without depth
+	/**
+	 * Adds a camera-facing rectangle given in billboard units around the
+	 * bed's billboard anchor.
+	 */
+	private void addBillboardQuad(WorldRenderer wr, BedRenderGeometry geometry, double scale,
+								  double x0, double y0, double x1, double y1, int rgb, float alpha) {
+		float r = (rgb >> 16 & 0xFF) / 255.0F;
+		float g = (rgb >> 8 & 0xFF) / 255.0F;
+		float b = (rgb & 0xFF) / 255.0F;
+		addBillboardVertex(wr, geometry, scale, x0, y0).color(r, g, b, alpha).endVertex();
+		addBillboardVertex(wr, geometry, scale, x1, y0).color(r, g, b, alpha).endVertex();
+		addBillboardVertex(wr, geometry, scale, x1, y1).color(r, g, b, alpha).endVertex();
+		addBillboardVertex(wr, geometry, scale, x0, y1).color(r, g, b, alpha).endVertex();
+	}
 
-			RenderItem renderItem = mc.getRenderItem();
-			renderItem.zLevel = 200.0F;
+	private WorldRenderer addBillboardVertex(WorldRenderer wr, BedRenderGeometry geometry, double scale, double x, double y) {
+		return wr.pos(geometry.anchorX + (x * rightX + y * upX) * scale,
+				geometry.anchorY + y * upY * scale,
+				geometry.anchorZ + (x * rightZ + y * upZ) * scale);
+	}
 
-			for (int i = 0; i < itemCount; i++) {
-				Block b = blocks.get(i);
-				ItemStack stack = new ItemStack(b);
+	/**
+	 * Draws each icon with its own item render (using 3D renderer but flattened).
+	 * Fallback for when offscreen framebuffers are not available.
+	 */
+	private void drawIconsDirect(BedRenderGeometry geometry) {
+		// Prepare item rendering
+		GlStateManager.enableTexture2D();
+		GlStateManager.enableRescaleNormal();
+		RenderHelper.enableGUIStandardItemLighting();
+		GlStateManager.enableBlend();
+		GlStateManager.tryBlendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, 1, 0);
+		GlStateManager.disableDepth(); // Force items to render flat without depth
 
-				GlStateManager.pushMatrix();
+		RenderItem renderItem = mc.getRenderItem();
+		renderItem.zLevel = 200.0F;
 
-				// Position each icon
-				double ix = startX + i * iconSpacing;
-				double iy = 0.0;
+		for (int i = 0; i < geometry.iconCount; i++) {
+			ItemStack stack = DefenseComposition.getIcon(geometry.getIconType(i));
 
-				GlStateManager.translate(ix, iy, 0.01);
+			GlStateManager.pushMatrix();
 
-				// Scale with minimal Z to keep mostly flat
-				GlStateManager.scale(ITEM_SCALE, ITEM_SCALE, 0.05);
+			// Position each icon
+			GlStateManager.translate(geometry.getIconX(i), 0.0, 0.01);
 
-				// Add isometric rotations for GUI/inventory look
-				GlStateManager.rotate(180.0F, 1.0F, 0.0F, 0.0F);
-				GlStateManager.rotate(45.0F, 0.0F, 1.0F, 0.0F);
-				GlStateManager.rotate(30.0F, 1.0F, 0.0F, 1.0F);
+			// Scale with minimal Z to keep mostly flat
+			GlStateManager.scale(ITEM_SCALE, ITEM_SCALE, 0.05);
 
-				// Use GUI transform
-				renderItem.renderItem(stack, ItemCameraTransforms.TransformType.GUI);
+			// Add isometric rotations for GUI/inventory look
+			GlStateManager.rotate(180.0F, 1.0F, 0.0F, 0.0F);
+			GlStateManager.rotate(45.0F, 0.0F, 1.0F, 0.0F);
+			GlStateManager.rotate(30.0F, 1.0F, 0.0F, 1.0F);
 
-				GlStateManager.popMatrix();
-			}
+			// Use GUI transform
+			renderItem.renderItem(stack, ItemCameraTransforms.TransformType.GUI);
 
-			// Restore item rendering state
-			renderItem.zLevel = 0.0F;
-			GlStateManager.enableDepth();
-			RenderHelper.disableStandardItemLighting();
-			GlStateManager.disableRescaleNormal();
+			GlStateManager.popMatrix();
 		}
 
-		// Restore GL state
-		GlStateManager.enableTexture2D();
+		// Restore item rendering state
+		renderItem.zLevel = 0.0F;
 		GlStateManager.enableDepth();
-		GlStateManager.disableBlend();
-		GlStateManager.enableLighting();
+		RenderHelper.disableStandardItemLighting();
+		GlStateManager.disableRescaleNormal();
+	}
 
-		GlStateManager.popMatrix();
+	/**
+	 * Checks a box against the view frustum and a squared distance limit
+	 * (measured to the box centre).
+	 */
+	private boolean isInView(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+							 double camX, double camY, double camZ, double maxDistSq) {
+		double dx = (minX + maxX) / 2.0 - camX;
+		double dy = (minY + maxY) / 2.0 - camY;
+		double dz = (minZ + maxZ) / 2.0 - camZ;
+		if (dx * dx + dy * dy + dz * dz > maxDistSq) return false;
+
+		return frustum.isBoxInFrustum(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	private static double square(double value) {
+		return value * value;
 	}
 
 	/**
-	 * Draw an outlined wireframe prism (no fill). x,y,z is the min corner (block coordinate style)
+	 * Sets up GL state once for all wireframes.
 	 */
-	private void drawWireframePrism(double minX, double minY, double minZ, double width, double height, double depth,
-									float r, float g, float b, float alpha) {
-		GlStateManager.pushMatrix();
+	private void setupLineState() {
 		GlStateManager.disableTexture2D();
 		GlStateManager.disableLighting();
 		GlStateManager.disableDepth();
 		GlStateManager.enableBlend();
 		GlStateManager.tryBlendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, 1, 0);
+		GL11.glLineWidth(ESP_LINE_WIDTH);
+	}
 
-		GL11.glLineWidth(2.0F);
-		Tessellator tess = Tessellator.getInstance();
-		WorldRenderer wr = tess.getWorldRenderer();
+	private void restoreLineState() {
+		GlStateManager.enableDepth();
+		GlStateManager.enableTexture2D();
+		GlStateManager.enableLighting();
+		GlStateManager.disableBlend();
+	}
 
+	/**
+	 * Add the 12 edges of a wireframe prism (no fill) to a GL_LINES POSITION_COLOR buffer. x,y,z is the min corner (block coordinate style)
+	 */
+	static void addWireframePrism(WorldRenderer wr, double minX, double minY, double minZ, double width, double height, double depth,
+								  float r, float g, float b, float alpha) {
 		// Compute 8 corners
 		double x0 = minX;
 		double x1 = minX + width;
@@ -330,9 +561,6 @@ public class BedplateRender {
 		double z0 = minZ;
 		double z1 = minZ + depth;
 
-		// Draw all edges
-		wr.begin(GL11.GL_LINES, DefaultVertexFormats.POSITION_COLOR);
-
 		// 4 vertical edges
 		wr.pos(x0, y0, z0).color(r, g, b, alpha).endVertex(); wr.pos(x0, y1, z0).color(r, g, b, alpha).endVertex();
 		wr.pos(x1, y0, z0).color(r, g, b, alpha).endVertex(); wr.pos(x1, y1, z0).color(r, g, b, alpha).endVertex();
@@ -350,22 +578,5 @@ public class BedplateRender {
 		wr.pos(x1, y1, z0).color(r, g, b, alpha).endVertex(); wr.pos(x1, y1, z1).color(r, g, b, alpha).endVertex();
 		wr.pos(x1, y1, z1).color(r, g, b, alpha).endVertex(); wr.pos(x0, y1, z1).color(r, g, b, alpha).endVertex();
 		wr.pos(x0, y1, z1).color(r, g, b, alpha).endVertex(); wr.pos(x0, y1, z0).color(r, g, b, alpha).endVertex();
-
-		tess.draw();
-
-		GlStateManager.enableDepth();
-		GlStateManager.enableTexture2D();
-		GlStateManager.enableLighting();
-		GlStateManager.disableBlend();
-		GlStateManager.popMatrix();
-	}
-
-	/**
-	 * Convenience wrapper for drawing obsidian block outlines
-	 */
-	private void drawOutlinedWireCube(double blockX, double blockY, double blockZ, double width, double height, double depth,
-									  float r, float g, float b, float alpha) {
-		if (!BedplateCommand.Config.showObsidianESP) return; // Early exit if disabled
-		drawWireframePrism(blockX, blockY + 0.01, blockZ, width, height, depth, r, g, b, alpha);
 	}
 }
\ No newline at end of file
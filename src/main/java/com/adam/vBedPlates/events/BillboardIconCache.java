@@ -0,0 +1,228 @@
+package com.adam.vBedPlates.events;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.OpenGlHelper;
+import net.minecraft.client.renderer.RenderHelper;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.WorldRenderer;
+import net.minecraft.client.renderer.entity.RenderItem;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.shader.Framebuffer;
+import org.lwjgl.opengl.GL11;
+
+import com.adam.vBedPlates.scan.DefenseComposition;
+
+/**
+ * Billboard icon strips rendered once per defense combination. Each distinct
+ * defense mask gets an offscreen Framebuffer holding its icons laid out the
+ * way BedRenderGeometry places them, so a billboard's icons become a single
+ * textured quad instead of one item render per icon per frame.
+ *
+ * Strips are kept in a small fixed table keyed by the raw mask; the least
+ * recently drawn one is deleted once more than MAX_STRIPS combinations are
+ * in use. Looking up a cached strip does not allocate. clear() frees every
+ * framebuffer, e.g. when the world unloads.
+ */
+public class BillboardIconCache {
+
+	private static final int MAX_STRIPS = 32;
+	private static final int ICON_PIXELS = 32;
+
+	/**
+	 * One rendered combination and where its texture ends.
+	 */
+	private static class Strip {
+		final Framebuffer framebuffer;
+		final double halfWidth; // Billboard units
+		final float maxU;
+		final float maxV;
+
+		Strip(Framebuffer framebuffer, double halfWidth, int width, int height) {
+			this.framebuffer = framebuffer;
+			this.halfWidth = halfWidth;
+			this.maxU = (float) width / framebuffer.framebufferTextureWidth;
+			this.maxV = (float) height / framebuffer.framebufferTextureHeight;
+		}
+	}
+
+	private final Minecraft mc = Minecraft.getMinecraft();
+	private final double iconSize; // Billboard units
+
+	// Cached strips by defense mask, with a use stamp to find the least recent
+	private final int[] masks = new int[MAX_STRIPS];
+	private final Strip[] strips = new Strip[MAX_STRIPS];
+	private final long[] lastUsed = new long[MAX_STRIPS];
+	private int stripCount = 0;
+	private long useCounter = 0;
+
+	public BillboardIconCache(double iconSize) {
+		this.iconSize = iconSize;
+	}
+
+	/**
+	 * Offscreen rendering needs framebuffer support; without it callers
+	 * should draw the icons directly.
+	 */
+	public boolean isSupported() {
+		return OpenGlHelper.isFramebufferEnabled();
+	}
+
+	/**
+	 * Deletes every cached strip's framebuffer. Strips are rendered again on
+	 * demand.
+	 */
+	public void clear() {
+		for (int i = 0; i < stripCount; i++) {
+			if (strips[i] != null) {
+				strips[i].framebuffer.deleteFramebuffer();
+				strips[i] = null;
+			}
+		}
+		stripCount = 0;
+	}
+
+	/**
+	 * Draws the icon strip for a bed as one quad centred on the current
+	 * (billboard) origin, rendering the strip first if it is not cached.
+	 * The slot is the one slotOf returned while picking billboards, or -1;
+	 * it is looked up again if another strip has taken it since.
+	 */
+	public void drawIcons(int slot, int defenseMask, BedRenderGeometry geometry) {
+		Strip strip = getStrip(slot, defenseMask, geometry);
+
+		double halfW = strip.halfWidth;
+		double halfH = iconSize / 2.0;
+
+		GlStateManager.enableTexture2D();
+		GlStateManager.disableDepth();
+		GlStateManager.enableBlend();
+		GlStateManager.tryBlendFuncSeparate(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, 1, 0);
+		GlStateManager.color(1.0F, 1.0F, 1.0F, 1.0F);
+		strip.framebuffer.bindFramebufferTexture();
+
+		// Billboard +x shows on the viewer's left and the texture's v runs bottom-up
+		Tessellator tess = Tessellator.getInstance();
+		WorldRenderer wr = tess.getWorldRenderer();
+		wr.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX);
+		wr.pos(halfW, -halfH, 0.01).tex(0.0, 0.0).endVertex();
+		wr.pos(-halfW, -halfH, 0.01).tex(strip.maxU, 0.0).endVertex();
+		wr.pos(-halfW, halfH, 0.01).tex(strip.maxU, strip.maxV).endVertex();
+		wr.pos(halfW, halfH, 0.01).tex(0.0, strip.maxV).endVertex();
+		tess.draw();
+
+		strip.framebuffer.unbindFramebufferTexture();
+	}
+
+	/**
+	 * Cached strip for a mask, rendered on a miss.
+	 */
+	private Strip getStrip(int slot, int defenseMask, BedRenderGeometry geometry) {
+		if (slot < 0 || slot >= stripCount || masks[slot] != defenseMask) {
+			slot = slotOf(defenseMask);
+		}
+		if (slot < 0) {
+			slot = claimSlot(defenseMask);
+		}
+		if (strips[slot] == null) {
+			strips[slot] = renderStrip(geometry);
+		}
+		return strips[slot];
+	}
+
+	/**
+	 * Slot holding a mask, marked as just used, or -1 if it has none. A
+	 * linear scan over MAX_STRIPS ints is cheaper than boxing the mask for a
+	 * map lookup every frame. Does not touch GL.
+	 */
+	int slotOf(int defenseMask) {
+		useCounter++;
+		for (int i = 0; i < stripCount; i++) {
+			if (masks[i] == defenseMask) {
+				lastUsed[i] = useCounter;
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gives a mask a free slot, or the least recently used one after deleting
+	 * its strip. The slot's strip is left for the caller to render.
+	 */
+	int claimSlot(int defenseMask) {
+		int slot;
+		if (stripCount < MAX_STRIPS) {
+			slot = stripCount++;
+		} else {
+			slot = 0;
+			for (int i = 1; i < stripCount; i++) {
+				if (lastUsed[i] < lastUsed[slot]) slot = i;
+			}
+			if (strips[slot] != null) {
+				strips[slot].framebuffer.deleteFramebuffer();
+			}
+		}
+		masks[slot] = defenseMask;
+		strips[slot] = null;
+		lastUsed[slot] = ++useCounter;
+		return slot;
+	}
+
+	/**
+	 * Renders the icons of one combination into a new framebuffer, using the
+	 * same horizontal layout as the billboard, then restores the main target.
+	 */
+	private Strip renderStrip(BedRenderGeometry geometry) {
+		double pixelsPerUnit = ICON_PIXELS / iconSize;
+		double halfWidth = geometry.halfWidth * 0.9 + iconSize / 2.0;
+		int width = (int) Math.ceil(halfWidth * 2.0 * pixelsPerUnit);
+		int height = ICON_PIXELS;
+
+		Framebuffer framebuffer = new Framebuffer(width, height, true);
+		framebuffer.setFramebufferColor(0.0F, 0.0F, 0.0F, 0.0F);
+		framebuffer.framebufferClear();
+		framebuffer.bindFramebuffer(true);
+
+		GlStateManager.matrixMode(GL11.GL_PROJECTION);
+		GlStateManager.pushMatrix();
+		GlStateManager.loadIdentity();
+		GlStateManager.ortho(0.0, width, height, 0.0, 1000.0, 3000.0);
+		GlStateManager.matrixMode(GL11.GL_MODELVIEW);
+		GlStateManager.pushMatrix();
+		GlStateManager.loadIdentity();
+		GlStateManager.translate(0.0F, 0.0F, -2000.0F);
+
+		boolean fog = GL11.glIsEnabled(GL11.GL_FOG);
+		GlStateManager.disableFog(); // Would wash out icons at this depth
+		GlStateManager.enableTexture2D();
+		GlStateManager.enableDepth();
+		GlStateManager.enableRescaleNormal();
+		RenderHelper.enableGUIStandardItemLighting();
+
+		// Item GUI renders are 16px; scale them up to the strip's icon size
+		float scale = ICON_PIXELS / 16.0F;
+		GlStateManager.scale(scale, scale, 1.0F);
+		RenderItem renderItem = mc.getRenderItem();
+		for (int i = 0; i < geometry.iconCount; i++) {
+			// Mirror the layout so it reads the same way round as the billboard
+			double centre = (halfWidth - geometry.getIconX(i)) * pixelsPerUnit;
+			int x = (int) Math.round(centre / scale - 8.0);
+			renderItem.renderItemIntoGUI(DefenseComposition.getIcon(geometry.getIconType(i)), x, 0);
+		}
+
+		RenderHelper.disableStandardItemLighting();
+		GlStateManager.disableRescaleNormal();
+		if (fog) {
+			GlStateManager.enableFog();
+		}
+
+		GlStateManager.matrixMode(GL11.GL_PROJECTION);
+		GlStateManager.popMatrix();
+		GlStateManager.matrixMode(GL11.GL_MODELVIEW);
+		GlStateManager.popMatrix();
+
+		mc.getFramebuffer().bindFramebuffer(true);
+		return new Strip(framebuffer, halfWidth, width, height);
+	}
+}
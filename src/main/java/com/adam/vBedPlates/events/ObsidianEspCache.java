@@ -0,0 +1,303 @@
+package com.adam.vBedPlates.events;
+
+import net.minecraft.client.renderer.GLAllocation;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.OpenGlHelper;
+import net.minecraft.client.renderer.WorldRenderer;
+import net.minecraft.client.renderer.WorldVertexBufferUploader;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexBuffer;
+import org.lwjgl.opengl.GL11;
+
+import com.adam.vBedPlates.util.PackedPos;
+
+/**
+ * Compiled obsidian ESP geometry. The silhouette outline from
+ * ObsidianOutlineMesher is built once into a VBO (or display lists when
+ * VBOs are unavailable) and drawn every frame without regenerating vertices.
+ *
+ * Segments are grouped by the chunk section they start in, and each group
+ * remembers its bounding box and vertex range, so groups outside the view
+ * frustum are skipped without a draw.
+ *
+ * The geometry is rebuilt when the published obsidian revision changes, and
+ * also after the camera has moved REBUILD_DISTANCE away from where it was
+ * built, since the distance fade and cut-off are baked into the vertices.
+ * Vertices are stored relative to a block origin so floats stay precise.
+ */
+public class ObsidianEspCache {
+
+	private static final double REBUILD_DISTANCE = 4.0;
+	private static final int VERTEX_SIZE = 16; // POSITION_COLOR: 3 floats + 4 bytes
+
+	private final ObsidianOutlineMesher mesher = new ObsidianOutlineMesher();
+	private final WorldRenderer builder = new WorldRenderer(0x40000);
+	private final WorldVertexBufferUploader uploader = new WorldVertexBufferUploader();
+	private VertexBuffer vbo = null;
+	private int displayLists = -1;
+	private int displayListCount = 0;
+	private boolean builtWithVbo = false;
+
+	private int builtRevision = -1;
+	private double builtDistance = -1;
+	private double builtCamX, builtCamY, builtCamZ;
+	private int originX, originY, originZ;
+
+	// Segment groups: section key, vertex range in the VBO and world-space bounds
+	private int groupCount = 0;
+	private long[] groupKeys = new long[16];
+	private int[] groupFirst = new int[16];
+	private int[] groupVertices = new int[16];
+	private double[] groupBounds = new double[16 * 6];
+	private int[] segmentGroups = new int[256]; // -1 if beyond the distance cut-off
+	private int visibleCount = 0;
+	private int[] visibleGroups = new int[16]; // Groups in view this frame, see cullGroups
+
+	/**
+	 * Draws the visible part of the obsidian outline, rebuilding first if
+	 * needed. Line state must already be set up, and the modelview
+	 * translated by -camera.
+	 */
+	public void render(TrackingSnapshot state, Frustum frustum, double camX, double camY, double camZ,
+					   double maxDistance, float r, float g, float b) {
+		if (isOutdated(state, camX, camY, camZ, maxDistance, OpenGlHelper.useVbo())) {
+			rebuild(state, camX, camY, camZ, maxDistance, r, g, b);
+		}
+		if (cullGroups(frustum) == 0) return;
+
+		GlStateManager.pushMatrix();
+		GlStateManager.translate(originX, originY, originZ);
+
+		if (builtWithVbo) {
+			vbo.bindBuffer();
+			GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+			GL11.glVertexPointer(3, GL11.GL_FLOAT, VERTEX_SIZE, 0L);
+			GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+			GL11.glColorPointer(4, GL11.GL_UNSIGNED_BYTE, VERTEX_SIZE, 12L);
+			for (int i = 0; i < visibleCount; i++) {
+				int group = visibleGroups[i];
+				GL11.glDrawArrays(GL11.GL_LINES, groupFirst[group], groupVertices[group]);
+			}
+			vbo.unbindBuffer();
+			GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
+			GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+		} else {
+			for (int i = 0; i < visibleCount; i++) {
+				GlStateManager.callList(displayLists + visibleGroups[i]);
+			}
+		}
+
+		GlStateManager.popMatrix();
+	}
+
+	/**
+	 * Whether the built geometry no longer matches the snapshot, cut-off,
+	 * buffer kind or camera position. Does not touch GL.
+	 */
+	boolean isOutdated(TrackingSnapshot state, double camX, double camY, double camZ, double maxDistance,
+					   boolean useVbo) {
+		double dx = camX - builtCamX;
+		double dy = camY - builtCamY;
+		double dz = camZ - builtCamZ;
+		return state.obsidianRevision != builtRevision || maxDistance != builtDistance ||
+				builtWithVbo != useVbo ||
+				dx * dx + dy * dy + dz * dz > REBUILD_DISTANCE * REBUILD_DISTANCE;
+	}
+
+	/**
+	 * Collects the groups whose bounds are in the frustum. Does not touch GL.
+	 *
+	 * @return the number of visible groups
+	 */
+	int cullGroups(Frustum frustum) {
+		visibleCount = 0;
+		for (int group = 0; group < groupCount; group++) {
+			int i = group * 6;
+			if (frustum.isBoxInFrustum(groupBounds[i], groupBounds[i + 1], groupBounds[i + 2],
+					groupBounds[i + 3], groupBounds[i + 4], groupBounds[i + 5])) {
+				visibleGroups[visibleCount++] = group;
+			}
+		}
+		return visibleCount;
+	}
+
+	private void rebuild(TrackingSnapshot state, double camX, double camY, double camZ, double maxDistance,
+						 float r, float g, float b) {
+		layOut(state, camX, camY, camZ, maxDistance);
+
+		if (OpenGlHelper.useVbo()) {
+			deleteDisplayLists();
+			if (vbo == null) {
+				vbo = new VertexBuffer(DefaultVertexFormats.POSITION_COLOR);
+			}
+
+			// One buffer with the groups back to back
+			builder.begin(GL11.GL_LINES, DefaultVertexFormats.POSITION_COLOR);
+			builder.setTranslation(-originX, -originY, -originZ);
+			for (int group = 0; group < groupCount; group++) {
+				emitGroup(group, maxDistance, r, g, b);
+			}
+			builder.finishDrawing();
+			builder.setTranslation(0, 0, 0);
+			vbo.bufferData(builder.getByteBuffer());
+			builder.reset();
+			builtWithVbo = true;
+		} else {
+			if (vbo != null) {
+				vbo.deleteGlBuffers();
+				vbo = null;
+			}
+			if (displayListCount < groupCount) {
+				deleteDisplayLists();
+				displayListCount = Math.max(groupCount, 8);
+				displayLists = GLAllocation.generateDisplayLists(displayListCount);
+			}
+
+			// One list per group
+			for (int group = 0; group < groupCount; group++) {
+				builder.begin(GL11.GL_LINES, DefaultVertexFormats.POSITION_COLOR);
+				builder.setTranslation(-originX, -originY, -originZ);
+				emitGroup(group, maxDistance, r, g, b);
+				builder.finishDrawing();
+				builder.setTranslation(0, 0, 0);
+
+				GL11.glNewList(displayLists + group, GL11.GL_COMPILE);
+				uploader.draw(builder); // Also resets the builder
+				GL11.glEndList();
+			}
+			builtWithVbo = false;
+		}
+	}
+
+	/**
+	 * Groups the in-range segments by chunk section and measures each group,
+	 * recording what the geometry is built for. Does not touch GL.
+	 */
+	void layOut(TrackingSnapshot state, double camX, double camY, double camZ, double maxDistance) {
+		builtRevision = state.obsidianRevision;
+		builtDistance = maxDistance;
+		builtCamX = camX;
+		builtCamY = camY;
+		builtCamZ = camZ;
+		originX = (int) Math.floor(camX);
+		originY = (int) Math.floor(camY);
+		originZ = (int) Math.floor(camZ);
+
+		mesher.update(state);
+		int segments = mesher.getSegmentCount();
+		if (segmentGroups.length < segments) {
+			segmentGroups = new int[Math.max(segments, segmentGroups.length * 2)];
+		}
+
+		// Group the segments in range by chunk section and measure each group
+		groupCount = 0;
+		for (int i = 0; i < segments; i++) {
+			double x0 = mesher.getSegmentX(i);
+			double y0 = mesher.getSegmentY(i) + 0.01;
+			double z0 = mesher.getSegmentZ(i);
+			double x1 = segmentEnd(x0, i, ObsidianOutlineMesher.AXIS_X);
+			double y1 = segmentEnd(y0, i, ObsidianOutlineMesher.AXIS_Y);
+			double z1 = segmentEnd(z0, i, ObsidianOutlineMesher.AXIS_Z);
+
+			if (distanceSq(x0, y0, z0, x1, y1, z1) > maxDistance * maxDistance) {
+				segmentGroups[i] = -1;
+				continue;
+			}
+
+			int group = groupOf(PackedPos.pack(mesher.getSegmentX(i) >> 4, mesher.getSegmentY(i) >> 4,
+					mesher.getSegmentZ(i) >> 4));
+			segmentGroups[i] = group;
+			groupVertices[group] += 2;
+
+			int bi = group * 6;
+			groupBounds[bi] = Math.min(groupBounds[bi], x0);
+			groupBounds[bi + 1] = Math.min(groupBounds[bi + 1], y0);
+			groupBounds[bi + 2] = Math.min(groupBounds[bi + 2], z0);
+			groupBounds[bi + 3] = Math.max(groupBounds[bi + 3], x1);
+			groupBounds[bi + 4] = Math.max(groupBounds[bi + 4], y1);
+			groupBounds[bi + 5] = Math.max(groupBounds[bi + 5], z1);
+		}
+
+		int first = 0;
+		for (int group = 0; group < groupCount; group++) {
+			groupFirst[group] = first;
+			first += groupVertices[group];
+		}
+		if (visibleGroups.length < groupCount) {
+			visibleGroups = new int[groupKeys.length];
+		}
+	}
+
+	private void emitGroup(int group, double maxDistance, float r, float g, float b) {
+		for (int i = 0; i < mesher.getSegmentCount(); i++) {
+			if (segmentGroups[i] != group) continue;
+
+			double x0 = mesher.getSegmentX(i);
+			double y0 = mesher.getSegmentY(i) + 0.01;
+			double z0 = mesher.getSegmentZ(i);
+			double x1 = segmentEnd(x0, i, ObsidianOutlineMesher.AXIS_X);
+			double y1 = segmentEnd(y0, i, ObsidianOutlineMesher.AXIS_Y);
+			double z1 = segmentEnd(z0, i, ObsidianOutlineMesher.AXIS_Z);
+
+			// Fade with distance, but don't go fully transparent
+			double distSq = distanceSq(x0, y0, z0, x1, y1, z1);
+			float alpha = Math.max(0.3f, 1.0f - (float) (Math.sqrt(distSq) / maxDistance));
+			builder.pos(x0, y0, z0).color(r, g, b, alpha).endVertex();
+			builder.pos(x1, y1, z1).color(r, g, b, alpha).endVertex();
+		}
+	}
+
+	private double segmentEnd(double start, int segment, int axis) {
+		return mesher.getSegmentAxis(segment) == axis ? start + mesher.getSegmentLength(segment) : start;
+	}
+
+	// Squared distance from the build camera to a segment's middle (avoids sqrt)
+	private double distanceSq(double x0, double y0, double z0, double x1, double y1, double z1) {
+		double dx = (x0 + x1) / 2.0 - builtCamX;
+		double dy = (y0 + y1) / 2.0 - builtCamY;
+		double dz = (z0 + z1) / 2.0 - builtCamZ;
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Index of the group for a section key, adding an empty group if needed.
+	 */
+	private int groupOf(long sectionKey) {
+		for (int group = 0; group < groupCount; group++) {
+			if (groupKeys[group] == sectionKey) return group;
+		}
+
+		if (groupCount == groupKeys.length) {
+			int capacity = groupKeys.length * 2;
+			long[] keys = new long[capacity];
+			int[] firsts = new int[capacity];
+			int[] vertices = new int[capacity];
+			double[] bounds = new double[capacity * 6];
+			System.arraycopy(groupKeys, 0, keys, 0, groupCount);
+			System.arraycopy(groupFirst, 0, firsts, 0, groupCount);
+			System.arraycopy(groupVertices, 0, vertices, 0, groupCount);
+			System.arraycopy(groupBounds, 0, bounds, 0, groupCount * 6);
+			groupKeys = keys;
+			groupFirst = firsts;
+			groupVertices = vertices;
+			groupBounds = bounds;
+		}
+
+		int group = groupCount++;
+		groupKeys[group] = sectionKey;
+		groupVertices[group] = 0;
+		int bi = group * 6;
+		groupBounds[bi] = groupBounds[bi + 1] = groupBounds[bi + 2] = Double.POSITIVE_INFINITY;
+		groupBounds[bi + 3] = groupBounds[bi + 4] = groupBounds[bi + 5] = Double.NEGATIVE_INFINITY;
+		return group;
+	}
+
+	private void deleteDisplayLists() {
+		if (displayLists >= 0) {
+			GLAllocation.deleteDisplayLists(displayLists, displayListCount);
+			displayLists = -1;
+			displayListCount = 0;
+		}
+	}
+}
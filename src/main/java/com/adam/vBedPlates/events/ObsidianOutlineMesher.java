@@ -0,0 +1,168 @@
+package com.adam.vBedPlates.events;
+
+import com.adam.vBedPlates.util.LongHashSet;
+import com.adam.vBedPlates.util.PackedPos;
+
+/**
+ * Turns the obsidian set into the silhouette edges of its connected regions,
+ * instead of a full 12-edge cube per block.
+ *
+ * A unit edge of the block grid is kept when the four blocks around it form
+ * a corner: one or three of them are obsidian, or two diagonal ones. Edges
+ * inside a flat face, inside a solid region or shared by two cubes side by
+ * side are dropped. Kept edges are then merged into straight runs, so a wall
+ * of any size comes out as its outline.
+ *
+ * Only the edges of blocks that appeared or vanished are re-evaluated when
+ * the set changes. Edges are keyed by their lower corner as PackedPos, one
+ * set per axis.
+ */
+public class ObsidianOutlineMesher {
+
+	public static final int AXIS_X = 0;
+	public static final int AXIS_Y = 1;
+	public static final int AXIS_Z = 2;
+
+	private LongHashSet solid = new LongHashSet();
+	private LongHashSet incoming = new LongHashSet();
+	private final LongHashSet changed = new LongHashSet();
+	private final LongHashSet[] edges = { new LongHashSet(), new LongHashSet(), new LongHashSet() };
+	private int revision = -1;
+
+	// Merged runs as (x, y, z, axis, length) from the lower end
+	private int[] segments = new int[5 * 64];
+	private int segmentCount = 0;
+
+	/**
+	 * Brings the outline up to date with the snapshot's obsidian set.
+	 *
+	 * @return true if the set had changed since the last update
+	 */
+	public boolean update(TrackingSnapshot state) {
+		if (state.obsidianRevision == revision) return false;
+		revision = state.obsidianRevision;
+
+		incoming.clear();
+		for (int i = 0; i < state.getObsidianCount(); i++) {
+			incoming.add(state.getObsidian(i));
+		}
+
+		// Blocks that vanished or appeared
+		changed.clear();
+		for (int slot = solid.firstSlot(); slot >= 0; slot = solid.nextSlot(slot)) {
+			if (!incoming.contains(solid.keyAt(slot))) changed.add(solid.keyAt(slot));
+		}
+		for (int slot = incoming.firstSlot(); slot >= 0; slot = incoming.nextSlot(slot)) {
+			if (!solid.contains(incoming.keyAt(slot))) changed.add(incoming.keyAt(slot));
+		}
+		if (changed.isEmpty()) return false;
+
+		LongHashSet previous = solid;
+		solid = incoming;
+		incoming = previous;
+
+		// Only the 12 edges of a changed block can change visibility
+		for (int slot = changed.firstSlot(); slot >= 0; slot = changed.nextSlot(slot)) {
+			long pos = changed.keyAt(slot);
+			int x = PackedPos.getX(pos);
+			int y = PackedPos.getY(pos);
+			int z = PackedPos.getZ(pos);
+			for (int a = 0; a <= 1; a++) {
+				for (int b = 0; b <= 1; b++) {
+					refreshEdge(AXIS_X, x, y + a, z + b);
+					refreshEdge(AXIS_Y, x + a, y, z + b);
+					refreshEdge(AXIS_Z, x + a, y + b, z);
+				}
+			}
+		}
+
+		mergeSegments();
+		return true;
+	}
+
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	public int getSegmentX(int i) { return segments[i * 5]; }
+	public int getSegmentY(int i) { return segments[i * 5 + 1]; }
+	public int getSegmentZ(int i) { return segments[i * 5 + 2]; }
+	public int getSegmentAxis(int i) { return segments[i * 5 + 3]; }
+	public int getSegmentLength(int i) { return segments[i * 5 + 4]; }
+
+	private void refreshEdge(int axis, int x, int y, int z) {
+		long key = PackedPos.pack(x, y, z);
+		if (isSilhouette(axis, x, y, z)) {
+			edges[axis].add(key);
+		} else {
+			edges[axis].remove(key);
+		}
+	}
+
+	/**
+	 * Checks the four blocks sharing the edge that starts at the lattice
+	 * point and runs one block along the axis.
+	 */
+	private boolean isSilhouette(int axis, int x, int y, int z) {
+		// Step towards the blocks on the lower side of the two other axes
+		int ux = axis == AXIS_X ? 0 : 1;
+		int uy = axis == AXIS_X ? 1 : 0;
+		int vy = axis == AXIS_Z ? 1 : 0;
+		int vz = axis == AXIS_Z ? 0 : 1;
+
+		boolean b00 = solid.contains(PackedPos.pack(x - ux, y - uy - vy, z - vz));
+		boolean b10 = solid.contains(PackedPos.pack(x, y - vy, z - vz));
+		boolean b01 = solid.contains(PackedPos.pack(x - ux, y - uy, z));
+		boolean b11 = solid.contains(PackedPos.pack(x, y, z));
+
+		int count = (b00 ? 1 : 0) + (b10 ? 1 : 0) + (b01 ? 1 : 0) + (b11 ? 1 : 0);
+		if (count == 1 || count == 3) return true;
+		// Two blocks meeting only along this edge
+		return count == 2 && b00 == b11;
+	}
+
+	/**
+	 * Joins consecutive kept edges along each axis into single runs.
+	 */
+	private void mergeSegments() {
+		segmentCount = 0;
+		for (int axis = AXIS_X; axis <= AXIS_Z; axis++) {
+			LongHashSet axisEdges = edges[axis];
+			int dx = axis == AXIS_X ? 1 : 0;
+			int dy = axis == AXIS_Y ? 1 : 0;
+			int dz = axis == AXIS_Z ? 1 : 0;
+
+			for (int slot = axisEdges.firstSlot(); slot >= 0; slot = axisEdges.nextSlot(slot)) {
+				long key = axisEdges.keyAt(slot);
+				int x = PackedPos.getX(key);
+				int y = PackedPos.getY(key);
+				int z = PackedPos.getZ(key);
+
+				// Only start a run at its lower end
+				if (axisEdges.contains(PackedPos.pack(x - dx, y - dy, z - dz))) continue;
+
+				int length = 1;
+				while (axisEdges.contains(PackedPos.pack(x + dx * length, y + dy * length, z + dz * length))) {
+					length++;
+				}
+				addSegment(x, y, z, axis, length);
+			}
+		}
+	}
+
+	private void addSegment(int x, int y, int z, int axis, int length) {
+		int offset = segmentCount * 5;
+		if (offset + 5 > segments.length) {
+			int[] grown = new int[segments.length * 2];
+			System.arraycopy(segments, 0, grown, 0, segments.length);
+			segments = grown;
+		}
+
+		segments[offset] = x;
+		segments[offset + 1] = y;
+		segments[offset + 2] = z;
+		segments[offset + 3] = axis;
+		segments[offset + 4] = length;
+		segmentCount++;
+	}
+}
@@ -0,0 +1,106 @@
+package com.adam.vBedPlates.events;
+
+import net.minecraft.util.BlockPos;
+
+import com.adam.vBedPlates.scan.BreachPath;
+import com.adam.vBedPlates.scan.DefenseComposition;
+import com.adam.vBedPlates.util.TeamDetector.BedTeam;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable copy of everything the scanner tracks, published through a
+ * single volatile reference. Readers take the reference once and use it for
+ * the whole frame; nothing in it changes afterwards, so no locking or
+ * defensive copying is needed no matter which thread scans.
+ *
+ * The scanner only publishes when something changed, and unchanged beds and
+ * obsidian arrays are carried over from the previous snapshot, so a quiet
+ * tick publishes nothing and a change to one bed copies only that bed.
+ */
+public class TrackingSnapshot {
+
+	public static final TrackingSnapshot EMPTY = new TrackingSnapshot(0, Collections.<Bed>emptyList(), new long[0], 0);
+
+	/**
+	 * One tracked bed as of publication.
+	 */
+	public static class Bed {
+		public final BlockPos footPos;
+		public final BlockPos headPos;
+		public final BedTeam team;
+		public final int defenseMask; // Over DefenseComposition types
+		public final int defenseVersion;
+		public final int layerCount;
+		public final int outermostType; // -1 if there is no defense
+		public final String defenseSummary;
+		public final boolean fullyEncased;
+		public final int breachCost; // Ticks, -1 if unknown or sealed
+		public final BlockPos breachEntry; // Null if nothing needs breaking
+		public final int breachVersion;
+		public final BedRenderGeometry geometry;
+
+		/**
+		 * Geometry is built by the caller, so it can be carried over from an
+		 * earlier snapshot of the same bed with the same defense mask.
+		 */
+		public Bed(BlockPos footPos, BlockPos headPos, BedTeam team, DefenseComposition defense,
+				   boolean fullyEncased, BreachPath breach, BedRenderGeometry geometry) {
+			this.footPos = footPos;
+			this.headPos = headPos;
+			this.team = team;
+			this.defenseMask = defense.getMask();
+			this.defenseVersion = defense.getVersion();
+			this.layerCount = defense.getLayerCount();
+			this.outermostType = defense.getOutermostType();
+			this.defenseSummary = defense.describeLayers();
+			this.fullyEncased = fullyEncased;
+			this.breachCost = breach.isStale() ? -1 : breach.getCost();
+			this.breachEntry = breach.isStale() ? null : breach.getEntryPoint();
+			this.breachVersion = breach.isStale() ? -1 : breach.getVersion();
+			this.geometry = geometry;
+		}
+
+		public boolean hasDefense(int type) {
+			return (defenseMask & 1 << type) != 0;
+		}
+
+		/**
+		 * Number of distinct defense block types present.
+		 */
+		public int getDefenseTypeCount() {
+			return Integer.bitCount(defenseMask);
+		}
+	}
+
+	public final int version;
+	public final List<Bed> beds;
+	public final int obsidianRevision;
+	private final long[] obsidian;
+
+	/**
+	 * The list is taken over and the array may be shared between snapshots;
+	 * neither may be modified afterwards.
+	 */
+	public TrackingSnapshot(int version, List<Bed> beds, long[] obsidian, int obsidianRevision) {
+		this.version = version;
+		this.beds = Collections.unmodifiableList(beds);
+		this.obsidian = obsidian;
+		this.obsidianRevision = obsidianRevision;
+	}
+
+	/**
+	 * Number of obsidian blocks around all tracked beds.
+	 */
+	public int getObsidianCount() {
+		return obsidian.length;
+	}
+
+	/**
+	 * An obsidian position as a PackedPos key.
+	 */
+	public long getObsidian(int index) {
+		return obsidian[index];
+	}
+}
@@ -0,0 +1,67 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.BlockPos;
+
+import com.adam.vBedPlates.util.LongHashSet;
+import com.adam.vBedPlates.util.TeamDetector;
+
+import java.util.Arrays;
+
+/**
+ * Stateless bed analysis routines that work on any BlockView, so they can
+ * run against the live world or against a snapshot on a worker thread.
+ */
+public class BedAnalyzer {
+
+	public static final int BED_ID = Block.getIdFromBlock(Blocks.bed);
+	public static final int OBSIDIAN_ID = Block.getIdFromBlock(Blocks.obsidian);
+	public static final boolean[] BED_FILTER = SectionScanner.filterOf(Blocks.bed);
+
+	/**
+	 * Returns the head position for a bed foot with the given metadata.
+	 */
+	public static BlockPos getHeadPos(BlockPos footPos, int meta) {
+		switch (meta & 3) {
+			case 0: return footPos.south();
+			case 1: return footPos.west();
+			case 2: return footPos.north();
+			default: return footPos.east();
+		}
+	}
+
+	/**
+	 * Reads a bed's neighbourhood once and derives everything tracked about
+	 * it: the team color histogram over TeamDetector's area comes from the
+	 * grid, and the defense composition and obsidian positions (as PackedPos
+	 * keys) come from a flood fill over the defense connected to the bed,
+	 * which reads through the grid and only goes to the view past its edge.
+	 * Encasement can then be read from the grid without further world access.
+	 *
+	 * @return true if obsidian appeared or vanished since the grid's previous read
+	 */
+	public static boolean analyze(BlockView view, BedNeighbourhood grid, DefenseFloodFill flood,
+								  DefenseComposition defenseOut, LongHashSet obsidianOut, int[] colorCounts) {
+		boolean obsidianChanged = grid.refresh(view);
+		Arrays.fill(colorCounts, 0);
+
+		int radius = TeamDetector.SCAN_RADIUS;
+		for (int dy = TeamDetector.SCAN_MIN_DY; dy <= TeamDetector.SCAN_MAX_DY; dy++) {
+			for (int dz = -radius; dz <= radius; dz++) {
+				int index = BedNeighbourhood.indexOf(-radius, dy, dz);
+				for (int dx = -radius; dx <= radius; dx++, index++) {
+					int state = grid.getStateAt(index);
+					if (state != 0 && TeamDetector.isColoredBlockId(state >> 4)) {
+						colorCounts[state & 15]++;
+					}
+				}
+			}
+		}
+
+		defenseOut.beginUpdate();
+		flood.fill(grid, view, defenseOut, obsidianOut);
+		defenseOut.commit();
+		return obsidianChanged;
+	}
+}
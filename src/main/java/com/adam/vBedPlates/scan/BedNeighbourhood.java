@@ -0,0 +1,148 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.util.BlockPos;
+
+import com.adam.vBedPlates.util.TeamDetector;
+
+/**
+ * Dense copy of the block states around one bed, plus a bitset of which of
+ * those cells are obsidian.
+ *
+ * The box is TeamDetector's color scan area, which also covers the blocks
+ * encasement checks and the start of the defense flood fill. It is read from the world
+ * once per refresh and every per-bed result is derived from the copy, so
+ * every bed costs the same fixed amount of memory. Change detection is a
+ * compare against the stored states, and encasement is a mask test on the
+ * bitset that does not touch the world.
+ */
+public class BedNeighbourhood {
+
+	public static final int RADIUS = TeamDetector.SCAN_RADIUS;
+	public static final int MIN_DY = TeamDetector.SCAN_MIN_DY;
+	public static final int MAX_DY = TeamDetector.SCAN_MAX_DY;
+	public static final int WIDTH = RADIUS * 2 + 1;
+	public static final int HEIGHT = MAX_DY - MIN_DY + 1;
+	public static final int CELLS = WIDTH * WIDTH * HEIGHT;
+	private static final int WORDS = (CELLS + 63) >> 6;
+
+	// Cells that must be obsidian for a bed to be fully encased, per facing (bed meta & 3)
+	private static final long[][] ENCASEMENT_MASKS = new long[4][WORDS];
+
+	static {
+		for (int facing = 0; facing < 4; facing++) {
+			int headX = facing == 1 ? -1 : facing == 3 ? 1 : 0;
+			int headZ = facing == 0 ? 1 : facing == 2 ? -1 : 0;
+
+			addHalfMask(ENCASEMENT_MASKS[facing], 0, 0, headX, headZ);
+			addHalfMask(ENCASEMENT_MASKS[facing], headX, headZ, 0, 0);
+		}
+	}
+
+	// Every side of one half except the bottom and the side facing the other half
+	private static void addHalfMask(long[] mask, int x, int z, int otherX, int otherZ) {
+		int[][] sides = { { x, 0, z - 1 }, { x, 0, z + 1 }, { x + 1, 0, z }, { x - 1, 0, z }, { x, 1, z } };
+		for (int[] side : sides) {
+			if (side[0] == otherX && side[1] == 0 && side[2] == otherZ) continue;
+
+			int index = indexOf(side[0], side[1], side[2]);
+			mask[index >> 6] |= 1L << index;
+		}
+	}
+
+	public final int originX;
+	public final int originY;
+	public final int originZ;
+	public final int headX;
+	public final int headZ;
+	public final int facing;
+	private final int headIndex;
+	private final char[] states = new char[CELLS];
+	private final long[] obsidian = new long[WORDS];
+	private boolean captured = false;
+
+	public BedNeighbourhood(BlockPos footPos, BlockPos headPos) {
+		originX = footPos.getX();
+		originY = footPos.getY();
+		originZ = footPos.getZ();
+		headX = headPos.getX();
+		headZ = headPos.getZ();
+
+		int dx = headPos.getX() - originX;
+		int dz = headPos.getZ() - originZ;
+		facing = dz > 0 ? 0 : dx < 0 ? 1 : dz < 0 ? 2 : 3;
+		headIndex = indexOf(dx, 0, dz);
+	}
+
+	/**
+	 * Cell index for a position relative to the bed foot.
+	 */
+	public static int indexOf(int dx, int dy, int dz) {
+		return ((dy - MIN_DY) * WIDTH + dz + RADIUS) * WIDTH + dx + RADIUS;
+	}
+
+	/**
+	 * Re-reads the box from the view, updating states and the obsidian bitset in place.
+	 *
+	 * @return true if any obsidian appeared or vanished (always true on the first read)
+	 */
+	public boolean refresh(BlockView view) {
+		boolean obsidianChanged = !captured;
+		int index = 0;
+
+		for (int dy = MIN_DY; dy <= MAX_DY; dy++) {
+			for (int dz = -RADIUS; dz <= RADIUS; dz++) {
+				for (int dx = -RADIUS; dx <= RADIUS; dx++, index++) {
+					char state = (char) view.getStateId(originX + dx, originY + dy, originZ + dz);
+					if (state == states[index]) continue;
+
+					boolean wasObsidian = states[index] >> 4 == BedAnalyzer.OBSIDIAN_ID;
+					boolean isObsidian = state >> 4 == BedAnalyzer.OBSIDIAN_ID;
+					if (wasObsidian != isObsidian) {
+						obsidian[index >> 6] ^= 1L << index;
+						obsidianChanged = true;
+					}
+					states[index] = state;
+				}
+			}
+		}
+
+		captured = true;
+		return obsidianChanged;
+	}
+
+	/**
+	 * Block state (id << 4 | meta) at a cell index, as of the last refresh.
+	 * Cells are ordered x fastest, then z, then y.
+	 */
+	public int getStateAt(int index) {
+		return states[index];
+	}
+
+	/**
+	 * Block state at a world position: from the copy when it lies inside the
+	 * box, otherwise read from the given view.
+	 */
+	public int getStateId(int x, int y, int z, BlockView outside) {
+		int dx = x - originX;
+		int dy = y - originY;
+		int dz = z - originZ;
+		if (dx < -RADIUS || dx > RADIUS || dz < -RADIUS || dz > RADIUS || dy < MIN_DY || dy > MAX_DY) {
+			return outside.getStateId(x, y, z);
+		}
+		return states[indexOf(dx, dy, dz)];
+	}
+
+	/**
+	 * Checks whether both halves are still a bed and covered by obsidian on
+	 * every side except the bottom and the side facing the other half.
+	 */
+	public boolean isFullyEncased() {
+		if (states[indexOf(0, 0, 0)] >> 4 != BedAnalyzer.BED_ID || states[headIndex] >> 4 != BedAnalyzer.BED_ID) return false;
+
+		long[] mask = ENCASEMENT_MASKS[facing];
+		for (int word = 0; word < WORDS; word++) {
+			if ((obsidian[word] & mask[word]) != mask[word]) return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,166 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.IWorldAccess;
+import net.minecraft.world.World;
+
+import com.adam.vBedPlates.util.LongHashSet;
+import com.adam.vBedPlates.util.PackedPos;
+
+/**
+ * World listener that records which blocks changed since the last drain.
+ *
+ * Single block changes (placing, breaking, explosions) arrive through
+ * markBlockForUpdate, while whole chunk refreshes arrive as render ranges.
+ * The scanner uses the journal to re-evaluate only beds whose neighbourhood
+ * was actually touched instead of polling every bed on a timer.
+ */
+public class BlockChangeJournal implements IWorldAccess {
+
+	private final LongHashSet dirtyBlocks = new LongHashSet(); // PackedPos keys
+	private int[] dirtyRanges = new int[6 * 8]; // Six ints per range, grown as needed
+	private int rangeCount = 0;
+	private World attachedWorld = null;
+
+	/**
+	 * Registers the journal on the given world, moving it off any previous world.
+	 */
+	public void attach(World world) {
+		if (world == attachedWorld) return;
+
+		detach();
+		if (world != null) {
+			world.addWorldAccess(this);
+			attachedWorld = world;
+		}
+	}
+
+	/**
+	 * Unregisters the journal and drops any pending changes.
+	 */
+	public void detach() {
+		if (attachedWorld != null) {
+			attachedWorld.removeWorldAccess(this);
+			attachedWorld = null;
+		}
+		clear();
+	}
+
+	public World getAttachedWorld() {
+		return attachedWorld;
+	}
+
+	public boolean isEmpty() {
+		return dirtyBlocks.isEmpty() && rangeCount == 0;
+	}
+
+	public LongHashSet getDirtyBlocks() {
+		return dirtyBlocks;
+	}
+
+	/**
+	 * Checks whether any recorded change falls inside the inclusive box.
+	 */
+	public boolean touches(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		for (int slot = dirtyBlocks.firstSlot(); slot >= 0; slot = dirtyBlocks.nextSlot(slot)) {
+			long pos = dirtyBlocks.keyAt(slot);
+			int x = PackedPos.getX(pos);
+			int y = PackedPos.getY(pos);
+			int z = PackedPos.getZ(pos);
+			if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+				return true;
+			}
+		}
+		return rangeTouches(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	/**
+	 * Checks only the bulk range updates, whose individual blocks are not recorded.
+	 */
+	public boolean rangeTouches(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		int[] ranges = dirtyRanges;
+		for (int i = 0; i < rangeCount * 6; i += 6) {
+			if (ranges[i] <= maxX && ranges[i + 3] >= minX &&
+					ranges[i + 1] <= maxY && ranges[i + 4] >= minY &&
+					ranges[i + 2] <= maxZ && ranges[i + 5] >= minZ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds another journal's recorded changes to this one.
+	 */
+	public void addAll(BlockChangeJournal other) {
+		dirtyBlocks.addAll(other.dirtyBlocks);
+		int[] ranges = other.dirtyRanges;
+		for (int i = 0; i < other.rangeCount * 6; i += 6) {
+			markBlockRangeForRenderUpdate(ranges[i], ranges[i + 1], ranges[i + 2], ranges[i + 3], ranges[i + 4], ranges[i + 5]);
+		}
+	}
+
+	public void clear() {
+		dirtyBlocks.clear();
+		rangeCount = 0;
+	}
+
+	@Override
+	public void markBlockForUpdate(BlockPos pos) {
+		dirtyBlocks.add(PackedPos.pack(pos));
+	}
+
+	@Override
+	public void markBlockRangeForRenderUpdate(int x1, int y1, int z1, int x2, int y2, int z2) {
+		int offset = rangeCount * 6;
+		if (offset + 6 > dirtyRanges.length) {
+			int[] grown = new int[dirtyRanges.length * 2];
+			System.arraycopy(dirtyRanges, 0, grown, 0, offset);
+			dirtyRanges = grown;
+		}
+
+		dirtyRanges[offset] = Math.min(x1, x2);
+		dirtyRanges[offset + 1] = Math.min(y1, y2);
+		dirtyRanges[offset + 2] = Math.min(z1, z2);
+		dirtyRanges[offset + 3] = Math.max(x1, x2);
+		dirtyRanges[offset + 4] = Math.max(y1, y2);
+		dirtyRanges[offset + 5] = Math.max(z1, z2);
+		rangeCount++;
+	}
+
+	// Remaining callbacks are irrelevant for block tracking
+
+	@Override
+	public void notifyLightSet(BlockPos pos) {}
+
+	@Override
+	public void playSound(String soundName, double x, double y, double z, float volume, float pitch) {}
+
+	@Override
+	public void playSoundToNearExcept(EntityPlayer except, String soundName, double x, double y, double z,
+									  float volume, float pitch) {}
+
+	@Override
+	public void spawnParticle(int particleID, boolean ignoreRange, double xCoord, double yCoord, double zCoord,
+							  double xOffset, double yOffset, double zOffset, int... parameters) {}
+
+	@Override
+	public void onEntityAdded(Entity entityIn) {}
+
+	@Override
+	public void onEntityRemoved(Entity entityIn) {}
+
+	@Override
+	public void playRecord(String recordName, BlockPos blockPosIn) {}
+
+	@Override
+	public void broadcastSound(int soundID, BlockPos pos, int data) {}
+
+	@Override
+	public void playAuxSFX(EntityPlayer player, int sfxType, BlockPos blockPosIn, int data) {}
+
+	@Override
+	public void sendBlockBreakProgress(int breakerId, BlockPos pos, int progress) {}
+}
@@ -0,0 +1,14 @@
+package com.adam.vBedPlates.scan;
+
+/**
+ * Read-only access to block states, backed either by the live world or by
+ * a copied snapshot so the same analysis code can run on any thread.
+ */
+public interface BlockView {
+
+	/**
+	 * Returns the packed block state (block id << 4 | metadata) at the position,
+	 * or 0 (air) if the position is outside the world or not loaded.
+	 */
+	int getStateId(int x, int y, int z);
+}
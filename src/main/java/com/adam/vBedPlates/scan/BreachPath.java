@@ -0,0 +1,188 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.material.Material;
+import net.minecraft.util.BlockPos;
+
+import com.adam.vBedPlates.util.LongHashSet;
+import com.adam.vBedPlates.util.PackedPos;
+
+/**
+ * The cheapest way into one bed: the path from open air to the bed that
+ * takes the least total break time, as found by BreachPathFinder.
+ *
+ * The region searched is a box around the bed that covers everything the
+ * defense flood fill can reach, from the bed's level up. Break times of
+ * every cell are kept, so a block change only marks the path stale when it
+ * can actually change the answer: a block on the path got harder, or a
+ * block anywhere got easier. Everything else is absorbed without a search.
+ */
+public class BreachPath {
+
+	public static final int RADIUS = DefenseFloodFill.MAX_LAYERS + 2;
+	public static final int WIDTH = RADIUS * 2 + 1;
+	public static final int HEIGHT = RADIUS + 1;
+	public static final int CELLS = WIDTH * WIDTH * HEIGHT;
+
+	static final int IMPASSABLE = Integer.MAX_VALUE;
+
+	// Ticks to break each block id with a plain matching tool, 0 for air and liquids
+	private static final int[] BREAK_TICKS = new int[4096];
+
+	static {
+		for (int id = 0; id < BREAK_TICKS.length; id++) {
+			Block block = Block.getBlockById(id);
+			BREAK_TICKS[id] = block == null ? 0 : breakTicksOf(block);
+		}
+	}
+
+	private static int breakTicksOf(Block block) {
+		Material material = block.getMaterial();
+		if (material == Material.air || material.isLiquid()) return 0;
+
+		float hardness;
+		try {
+			hardness = block.getBlockHardness(null, null);
+		} catch (RuntimeException e) {
+			return 0;
+		}
+		if (hardness < 0) return IMPASSABLE; // Bedrock, barriers
+
+		// Vanilla breaks a harvestable block in hardness * 30 ticks at tool speed 1
+		return hardness == 0 ? 0 : Math.max(1, Math.round(hardness * 30));
+	}
+
+	/**
+	 * Break time in ticks for a block id, or IMPASSABLE if it cannot be broken.
+	 */
+	public static int breakTicks(int blockId) {
+		return BREAK_TICKS[blockId];
+	}
+
+	public final int originX;
+	public final int originY;
+	public final int originZ;
+	final int footIndex;
+	final int headIndex;
+
+	// Search input and result, filled by BreachPathFinder
+	final int[] costs = new int[CELLS];
+	final LongHashSet pathCells = new LongHashSet();
+	boolean captured = false;
+	boolean stale = true;
+	int cost = -1;
+	BlockPos entryPoint = null;
+	int version = 0;
+
+	public BreachPath(BlockPos footPos, BlockPos headPos) {
+		originX = footPos.getX();
+		originY = footPos.getY();
+		originZ = footPos.getZ();
+		footIndex = indexOf(0, 0, 0);
+		headIndex = indexOf(headPos.getX() - originX, 0, headPos.getZ() - originZ);
+	}
+
+	private BreachPath(BreachPath other) {
+		originX = other.originX;
+		originY = other.originY;
+		originZ = other.originZ;
+		footIndex = other.footIndex;
+		headIndex = other.headIndex;
+		version = other.version;
+	}
+
+	/**
+	 * A fresh path over the same region that continues this one's version,
+	 * for searching on the worker thread against a snapshot. Nothing is
+	 * shared, so the copy can be searched while this one keeps taking changes.
+	 */
+	public BreachPath copyForSearch() {
+		return new BreachPath(this);
+	}
+
+	/**
+	 * Cell index for a position relative to the bed foot.
+	 */
+	static int indexOf(int dx, int dy, int dz) {
+		return (dy * WIDTH + dz + RADIUS) * WIDTH + dx + RADIUS;
+	}
+
+	public boolean contains(int x, int y, int z) {
+		int dx = x - originX;
+		int dy = y - originY;
+		int dz = z - originZ;
+		return dx >= -RADIUS && dx <= RADIUS && dz >= -RADIUS && dz <= RADIUS && dy >= 0 && dy < HEIGHT;
+	}
+
+	public int getMinX() { return originX - RADIUS; }
+	public int getMinY() { return originY; }
+	public int getMinZ() { return originZ - RADIUS; }
+	public int getMaxX() { return originX + RADIUS; }
+	public int getMaxY() { return originY + HEIGHT - 1; }
+	public int getMaxZ() { return originZ + RADIUS; }
+
+	/**
+	 * Records a changed block inside the region. Marks the path stale only if
+	 * the change can move the cheapest path.
+	 */
+	public void onBlockChanged(int x, int y, int z, int stateId) {
+		if (!captured || !contains(x, y, z)) return;
+
+		int index = indexOf(x - originX, y - originY, z - originZ);
+		int newCost = BREAK_TICKS[stateId >> 4];
+		int oldCost = costs[index];
+		if (newCost == oldCost) return;
+
+		costs[index] = newCost;
+		if (newCost < oldCost || pathCells.contains(PackedPos.pack(x, y, z))) {
+			stale = true;
+		}
+	}
+
+	/**
+	 * Forgets the stored break times, e.g. after a bulk change whose blocks
+	 * are not known individually. The next search re-reads the region.
+	 */
+	public void invalidate() {
+		captured = false;
+		stale = true;
+	}
+
+	public boolean isStale() {
+		return stale;
+	}
+
+	/**
+	 * Total break time of the cheapest path in ticks: 0 if the bed is open to
+	 * the air, -1 if no path exists or it has not been searched yet.
+	 */
+	public int getCost() {
+		return cost;
+	}
+
+	public float getCostSeconds() {
+		return cost / 20.0F;
+	}
+
+	/**
+	 * The first block an attacker has to break, from the outside, or null if
+	 * nothing needs breaking or there is no path.
+	 */
+	public BlockPos getEntryPoint() {
+		return entryPoint;
+	}
+
+	/**
+	 * Every cell on the current path, air included, as PackedPos keys.
+	 */
+	public LongHashSet getPathCells() {
+		return pathCells;
+	}
+
+	/**
+	 * Bumped on every search, so the renderer can tell when to rebuild.
+	 */
+	public int getVersion() {
+		return version;
+	}
+}
@@ -0,0 +1,145 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.util.BlockPos;
+
+import com.adam.vBedPlates.util.PackedPos;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra search for a bed's BreachPath, run outwards from both bed halves
+ * until it reaches the edge of the region. Entering a cell costs its break
+ * time, so the first edge cell taken off the queue ends the cheapest path.
+ *
+ * The work per search is bounded by BreachPath.CELLS. Buffers are kept
+ * between searches; use one instance per thread.
+ */
+public class BreachPathFinder {
+
+	private static final int[] NEIGHBOURS = {
+			1, -1, BreachPath.WIDTH, -BreachPath.WIDTH, BreachPath.WIDTH * BreachPath.WIDTH, -BreachPath.WIDTH * BreachPath.WIDTH
+	};
+
+	private final int[] dist = new int[BreachPath.CELLS];
+	private final int[] parent = new int[BreachPath.CELLS];
+	// Binary min-heap of (distance << 32 | cell), stale entries are skipped on pop
+	private final long[] heap = new long[BreachPath.CELLS * NEIGHBOURS.length + 2];
+	private int heapSize;
+
+	/**
+	 * Re-runs the search for a path, reading break times from the view first
+	 * if the path has none stored.
+	 */
+	public void compute(BreachPath path, BlockView view) {
+		if (!path.captured) {
+			capture(path, view);
+		}
+
+		Arrays.fill(dist, Integer.MAX_VALUE);
+		heapSize = 0;
+		dist[path.footIndex] = 0;
+		dist[path.headIndex] = 0;
+		parent[path.footIndex] = -1;
+		parent[path.headIndex] = -1;
+		push(path.footIndex);
+		push(path.headIndex);
+
+		int exit = -1;
+		while (heapSize > 0) {
+			long entry = pop();
+			int cell = (int) entry;
+			int d = (int) (entry >>> 32);
+			if (d != dist[cell]) continue;
+
+			if (isOnEdge(cell)) {
+				exit = cell;
+				break;
+			}
+
+			int dx = cell % BreachPath.WIDTH;
+			int dz = cell / BreachPath.WIDTH % BreachPath.WIDTH;
+			int dy = cell / (BreachPath.WIDTH * BreachPath.WIDTH);
+			for (int i = 0; i < NEIGHBOURS.length; i++) {
+				// Inner cells never wrap horizontally; below the bed is outside the region
+				if (i == 5 && dy == 0) continue;
+
+				int next = cell + NEIGHBOURS[i];
+				int cost = path.costs[next];
+				if (cost == BreachPath.IMPASSABLE) continue;
+
+				int nd = d + cost;
+				if (nd < dist[next]) {
+					dist[next] = nd;
+					parent[next] = cell;
+					push(next);
+				}
+			}
+		}
+
+		path.pathCells.clear();
+		path.entryPoint = null;
+		path.cost = exit < 0 ? -1 : dist[exit];
+
+		// Walk back from the edge; the first cell that needs breaking is the entry
+		for (int cell = exit; cell >= 0; cell = parent[cell]) {
+			int x = path.originX + cell % BreachPath.WIDTH - BreachPath.RADIUS;
+			int y = path.originY + cell / (BreachPath.WIDTH * BreachPath.WIDTH);
+			int z = path.originZ + cell / BreachPath.WIDTH % BreachPath.WIDTH - BreachPath.RADIUS;
+			path.pathCells.add(PackedPos.pack(x, y, z));
+			if (path.entryPoint == null && path.costs[cell] > 0 && parent[cell] >= 0) {
+				path.entryPoint = new BlockPos(x, y, z);
+			}
+		}
+
+		path.stale = false;
+		path.version++;
+	}
+
+	private static void capture(BreachPath path, BlockView view) {
+		int index = 0;
+		for (int dy = 0; dy < BreachPath.HEIGHT; dy++) {
+			for (int dz = -BreachPath.RADIUS; dz <= BreachPath.RADIUS; dz++) {
+				for (int dx = -BreachPath.RADIUS; dx <= BreachPath.RADIUS; dx++, index++) {
+					int state = view.getStateId(path.originX + dx, path.originY + dy, path.originZ + dz);
+					path.costs[index] = BreachPath.breakTicks(state >> 4);
+				}
+			}
+		}
+		path.captured = true;
+	}
+
+	private static boolean isOnEdge(int cell) {
+		int dx = cell % BreachPath.WIDTH;
+		int dz = cell / BreachPath.WIDTH % BreachPath.WIDTH;
+		int dy = cell / (BreachPath.WIDTH * BreachPath.WIDTH);
+		return dx == 0 || dx == BreachPath.WIDTH - 1 || dz == 0 || dz == BreachPath.WIDTH - 1 || dy == BreachPath.HEIGHT - 1;
+	}
+
+	private void push(int cell) {
+		long entry = (long) dist[cell] << 32 | cell;
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) >> 1;
+			if (heap[up] <= entry) break;
+			heap[i] = heap[up];
+			i = up;
+		}
+		heap[i] = entry;
+	}
+
+	private long pop() {
+		long top = heap[0];
+		long last = heap[--heapSize];
+		int i = 0;
+		while (true) {
+			int child = i * 2 + 1;
+			if (child >= heapSize) break;
+			if (child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+			if (heap[child] >= last) break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = last;
+		return top;
+	}
+}
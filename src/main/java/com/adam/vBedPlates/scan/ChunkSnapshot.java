@@ -0,0 +1,49 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * Immutable copy of a chunk column's block data, safe to read from any thread.
+ * Empty sections are not copied at all.
+ */
+public class ChunkSnapshot {
+	public final int chunkX;
+	public final int chunkZ;
+	private final char[][] sections = new char[16][];
+
+	private ChunkSnapshot(int chunkX, int chunkZ) {
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+	}
+
+	/**
+	 * Copies the non-empty sections of a live chunk. Must be called on the client thread.
+	 */
+	public static ChunkSnapshot capture(Chunk chunk) {
+		ChunkSnapshot snapshot = new ChunkSnapshot(chunk.xPosition, chunk.zPosition);
+		ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+
+		for (int i = 0; i < storage.length; i++) {
+			if (storage[i] != null && !storage[i].isEmpty()) {
+				snapshot.sections[i] = storage[i].getData().clone();
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Returns the copied data array for a section, or null if it was empty.
+	 */
+	public char[] getSection(int sectionY) {
+		return sections[sectionY];
+	}
+
+	public int getStateId(int x, int y, int z) {
+		if (y < 0 || y > 255) return 0;
+
+		char[] data = sections[y >> 4];
+		if (data == null) return 0;
+		return data[(y & 15) << 8 | (z & 15) << 4 | (x & 15)];
+	}
+}
@@ -0,0 +1,238 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.block.Block;
+import net.minecraft.init.Blocks;
+import net.minecraft.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Which defense blocks surround a bed, and how many of each.
+ *
+ * Every block accepted by isDefenseBlock gets a fixed type index
+ * in the catalogue; a composition is a bitmask over those types plus a count
+ * per type. Types are also counted per layer (distance from the bed as
+ * walked by DefenseFloodFill), so the outermost layer can be told apart
+ * from the inner ones. The version only changes when the composition actually changes,
+ * so consumers can keep the last version they saw and skip work otherwise.
+ * Updating and reading never allocate.
+ */
+public class DefenseComposition {
+
+	private static final Block[] CATALOGUE;
+	private static final ItemStack[] ICONS;
+	private static final int[] SWATCHES;
+	private static final int[] TYPE_BY_ID = new int[4096];
+
+	public static final int TYPES;
+	public static final int MAX_LAYERS = DefenseFloodFill.MAX_LAYERS;
+
+	static {
+		List<Block> catalogue = new ArrayList<>();
+		Arrays.fill(TYPE_BY_ID, -1);
+		for (int id = 0; id < TYPE_BY_ID.length; id++) {
+			Block block = Block.getBlockById(id);
+			if (block != null && isDefenseBlock(block) && !catalogue.contains(block)) {
+				TYPE_BY_ID[id] = catalogue.size();
+				catalogue.add(block);
+			}
+		}
+
+		CATALOGUE = catalogue.toArray(new Block[0]);
+		TYPES = CATALOGUE.length;
+
+		// One shared stack and map colour per type for rendering
+		ICONS = new ItemStack[TYPES];
+		SWATCHES = new int[TYPES];
+		for (int type = 0; type < TYPES; type++) {
+			ICONS[type] = new ItemStack(CATALOGUE[type]);
+			SWATCHES[type] = CATALOGUE[type].getMapColor(CATALOGUE[type].getDefaultState()).colorValue;
+		}
+	}
+
+	/**
+	 * Whether a block counts as bed defense.
+	 */
+	public static boolean isDefenseBlock(Block block) {
+		return block == Blocks.end_stone ||
+				block == Blocks.obsidian ||
+				block == Blocks.glass ||
+				block == Blocks.stained_glass ||
+				block == Blocks.wool ||
+				block == Blocks.ladder ||
+				block == Blocks.planks ||
+				block == Blocks.log ||
+				block == Blocks.log2 ||
+				block == Blocks.packed_ice;
+	}
+
+	/**
+	 * Catalogue index for a block id, or -1 if it is not a defense block.
+	 */
+	public static int typeOf(int blockId) {
+		return TYPE_BY_ID[blockId];
+	}
+
+	public static Block getBlock(int type) {
+		return CATALOGUE[type];
+	}
+
+	/**
+	 * Shared item stack for drawing a type. Do not modify it.
+	 */
+	public static ItemStack getIcon(int type) {
+		return ICONS[type];
+	}
+
+	/**
+	 * Flat 0xRRGGBB colour for drawing a type when icons are too small to read.
+	 */
+	public static int getSwatchColor(int type) {
+		return SWATCHES[type];
+	}
+
+	private int mask = 0;
+	private final int[] counts = new int[TYPES];
+	private int layers = 0;
+	private final int[] layerCounts = new int[MAX_LAYERS * TYPES]; // [(layer - 1) * TYPES + type]
+	private int version = 0;
+
+	// Scratch state filled between beginUpdate and commit
+	private int pendingMask = 0;
+	private final int[] pendingCounts = new int[TYPES];
+	private int pendingLayers = 0;
+	private final int[] pendingLayerCounts = new int[MAX_LAYERS * TYPES];
+
+	/**
+	 * Starts collecting a new composition. The current one stays readable
+	 * until commit.
+	 */
+	public void beginUpdate() {
+		pendingMask = 0;
+		Arrays.fill(pendingCounts, 0);
+		pendingLayers = 0;
+		Arrays.fill(pendingLayerCounts, 0);
+	}
+
+	/**
+	 * Counts one block at a layer (1 = touching the bed) during an update.
+	 * Non-defense ids are ignored.
+	 */
+	public void add(int blockId, int layer) {
+		int type = TYPE_BY_ID[blockId];
+		if (type < 0 || layer < 1 || layer > MAX_LAYERS) return;
+
+		pendingMask |= 1 << type;
+		pendingCounts[type]++;
+		pendingLayerCounts[(layer - 1) * TYPES + type]++;
+		if (layer > pendingLayers) pendingLayers = layer;
+	}
+
+	/**
+	 * Publishes the collected composition, bumping the version if it differs.
+	 *
+	 * @return true if the composition changed
+	 */
+	public boolean commit() {
+		if (pendingMask == mask && pendingLayers == layers &&
+				Arrays.equals(pendingCounts, counts) && Arrays.equals(pendingLayerCounts, layerCounts)) return false;
+
+		mask = pendingMask;
+		System.arraycopy(pendingCounts, 0, counts, 0, TYPES);
+		layers = pendingLayers;
+		System.arraycopy(pendingLayerCounts, 0, layerCounts, 0, layerCounts.length);
+		version++;
+		return true;
+	}
+
+	/**
+	 * Takes over another composition (e.g. one analysed on the worker thread).
+	 *
+	 * @return true if the composition changed
+	 */
+	public boolean copyFrom(DefenseComposition other) {
+		pendingMask = other.mask;
+		System.arraycopy(other.counts, 0, pendingCounts, 0, TYPES);
+		pendingLayers = other.layers;
+		System.arraycopy(other.layerCounts, 0, pendingLayerCounts, 0, layerCounts.length);
+		return commit();
+	}
+
+	public int getMask() {
+		return mask;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public boolean isEmpty() {
+		return mask == 0;
+	}
+
+	/**
+	 * Number of distinct defense block types present.
+	 */
+	public int size() {
+		return Integer.bitCount(mask);
+	}
+
+	public boolean contains(int type) {
+		return (mask & 1 << type) != 0;
+	}
+
+	public int getCount(int type) {
+		return counts[type];
+	}
+
+	/**
+	 * Count for a specific block, e.g. getCount(Blocks.obsidian).
+	 */
+	public int getCount(Block block) {
+		int type = TYPE_BY_ID[Block.getIdFromBlock(block)];
+		return type < 0 ? 0 : counts[type];
+	}
+
+	/**
+	 * Number of layers reached, 0 if the bed is bare.
+	 */
+	public int getLayerCount() {
+		return layers;
+	}
+
+	/**
+	 * Count of a type within one layer (1 = touching the bed).
+	 */
+	public int getCount(int type, int layer) {
+		return layerCounts[(layer - 1) * TYPES + type];
+	}
+
+	/**
+	 * The most common type in the outermost layer, or -1 if there is none.
+	 * This is what an attacker has to get through first.
+	 */
+	public int getOutermostType() {
+		if (layers == 0) return -1;
+
+		int offset = (layers - 1) * TYPES;
+		int best = -1;
+		for (int type = 0; type < TYPES; type++) {
+			if (layerCounts[offset + type] > 0 && (best < 0 || layerCounts[offset + type] > layerCounts[offset + best])) {
+				best = type;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Short layer breakdown for chat, e.g. "3 layers, outermost is Wool".
+	 */
+	public String describeLayers() {
+		int outermost = getOutermostType();
+		if (outermost < 0) return "no defense";
+
+		return layers + (layers == 1 ? " layer" : " layers") + ", outermost is " + CATALOGUE[outermost].getLocalizedName();
+	}
+}
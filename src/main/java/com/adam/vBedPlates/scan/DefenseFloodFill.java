@@ -0,0 +1,87 @@
+package com.adam.vBedPlates.scan;
+
+import com.adam.vBedPlates.util.LongHashSet;
+import com.adam.vBedPlates.util.PackedPos;
+
+/**
+ * Bounded breadth-first walk over the defense blocks connected to a bed.
+ *
+ * Starting from both bed halves, it only steps onto blocks accepted by
+ * DefenseComposition.isDefenseBlock, so the work is proportional to the size of the
+ * actual defense rather than to a fixed cube, and big builds are followed
+ * out to their last layer. Each block's layer is its distance from the bed
+ * through defense blocks (1 = touching the bed). The walk never goes below
+ * the bed, so the island floor is not mistaken for defense.
+ *
+ * Instances keep their buffers between calls; use one per thread.
+ */
+public class DefenseFloodFill {
+
+	public static final int MAX_LAYERS = 8;
+	public static final int MAX_BLOCKS = 1024;
+
+	private static final int[][] DIRECTIONS = {
+			{ 1, 0, 0 }, { -1, 0, 0 }, { 0, 0, 1 }, { 0, 0, -1 }, { 0, 1, 0 }, { 0, -1, 0 }
+	};
+
+	private final LongHashSet visited = new LongHashSet(MAX_BLOCKS * 6);
+	private final long[] queue = new long[MAX_BLOCKS + 2];
+	private final byte[] layers = new byte[MAX_BLOCKS + 2];
+
+	/**
+	 * Walks the defense around the bed described by the grid. Positions inside
+	 * the grid are read from it; anything further out comes from the view.
+	 * Every block reached is counted into defenseOut (which must be between
+	 * beginUpdate and commit), and obsidian positions are added as PackedPos keys.
+	 *
+	 * @return the number of defense blocks reached
+	 */
+	public int fill(BedNeighbourhood grid, BlockView outside, DefenseComposition defenseOut, LongHashSet obsidianOut) {
+		visited.clear();
+		int head = 0;
+		int tail = 0;
+
+		queue[tail] = PackedPos.pack(grid.originX, grid.originY, grid.originZ);
+		layers[tail++] = 0;
+		queue[tail] = PackedPos.pack(grid.headX, grid.originY, grid.headZ);
+		layers[tail++] = 0;
+		visited.add(queue[0]);
+		visited.add(queue[1]);
+
+		int reached = 0;
+		while (head < tail) {
+			long pos = queue[head];
+			int layer = layers[head++] + 1;
+			if (layer > MAX_LAYERS) continue;
+
+			int px = PackedPos.getX(pos);
+			int py = PackedPos.getY(pos);
+			int pz = PackedPos.getZ(pos);
+
+			for (int[] dir : DIRECTIONS) {
+				int x = px + dir[0];
+				int y = py + dir[1];
+				int z = pz + dir[2];
+				if (y < grid.originY) continue;
+
+				long next = PackedPos.pack(x, y, z);
+				if (!visited.add(next)) continue;
+
+				int id = grid.getStateId(x, y, z, outside) >> 4;
+				if (DefenseComposition.typeOf(id) < 0) continue;
+
+				defenseOut.add(id, layer);
+				if (id == BedAnalyzer.OBSIDIAN_ID) {
+					obsidianOut.add(next);
+				}
+
+				// Stop growing once the budget is spent; what was reached still counts
+				if (++reached >= MAX_BLOCKS) return reached;
+
+				queue[tail] = next;
+				layers[tail++] = (byte) layer;
+			}
+		}
+		return reached;
+	}
+}
@@ -0,0 +1,83 @@
+package com.adam.vBedPlates.scan;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join sweep over many chunk columns of a WorldSnapshot. Used for the
+ * full re-index after a map is detected, where hundreds of columns need
+ * bed detection and analysis at once.
+ *
+ * Columns are sorted before being split, and each task concatenates its
+ * halves in order, so the merged result is the same on every run no matter
+ * how the work was scheduled.
+ */
+public class ParallelSweep {
+
+	/** Backlogs smaller than this are not worth forking for. */
+	public static final int MIN_COLUMNS = 16;
+	private static final int COLUMNS_PER_TASK = 4;
+
+	private static ForkJoinPool pool = null;
+
+	/**
+	 * Pool sized to the spare cores, leaving one for the client thread.
+	 */
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		}
+		return pool;
+	}
+
+	/**
+	 * Indexes and analyses every bed in the given columns in parallel.
+	 * Blocks the calling thread, so it should be called from the ScanWorker.
+	 */
+	public static List<ScanWorker.BedResult> indexColumns(ScanWorker.Job job) {
+		List<Long> sorted = new ArrayList<>(job.chunksToIndex);
+		sorted.sort(Comparator.comparingInt((Long key) -> (int) (long) key)
+				.thenComparingInt(key -> (int) (key >> 32)));
+
+		return getPool().invoke(new SweepTask(job, sorted, 0, sorted.size()));
+	}
+
+	private static class SweepTask extends RecursiveTask<List<ScanWorker.BedResult>> {
+		private final ScanWorker.Job job;
+		private final List<Long> columns;
+		private final int start;
+		private final int end;
+
+		SweepTask(ScanWorker.Job job, List<Long> columns, int start, int end) {
+			this.job = job;
+			this.columns = columns;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected List<ScanWorker.BedResult> compute() {
+			if (end - start <= COLUMNS_PER_TASK) {
+				List<ScanWorker.BedResult> beds = new ArrayList<>();
+				for (int i = start; i < end; i++) {
+					ScanWorker.indexChunk(job, columns.get(i), beds);
+				}
+				return beds;
+			}
+
+			int mid = (start + end) >>> 1;
+			SweepTask left = new SweepTask(job, columns, start, mid);
+			SweepTask right = new SweepTask(job, columns, mid, end);
+			left.fork();
+			List<ScanWorker.BedResult> rightBeds = right.compute();
+			List<ScanWorker.BedResult> beds = left.join();
+
+			// Left half first keeps the merge order deterministic
+			beds.addAll(rightBeds);
+			return beds;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.world.ChunkCoordIntPair;
+
+/**
+ * Resumable cursor over the chunk columns of a scan area. The scanner
+ * advances it by as many columns as fit in its per-tick budget and picks up
+ * where it left off on the next tick.
+ *
+ * Each pass remembers the tick it started on, so callers can ask how many
+ * columns must be processed this tick to finish the pass within a staleness
+ * bound, and when the next pass is due.
+ */
+public class ScanCursor {
+	private int minChunkX;
+	private int minChunkZ;
+	private int widthChunks;
+	private int totalColumns = 0;
+	private int index = 0;
+	private long passStartTick;
+	private boolean started = false;
+
+	/**
+	 * Starts a new pass over every chunk column overlapping the block-space XZ area.
+	 */
+	public void begin(int minX, int minZ, int maxX, int maxZ, long tick) {
+		minChunkX = minX >> 4;
+		minChunkZ = minZ >> 4;
+		widthChunks = (maxX >> 4) - minChunkX + 1;
+		int depthChunks = (maxZ >> 4) - minChunkZ + 1;
+
+		totalColumns = widthChunks * depthChunks;
+		index = 0;
+		passStartTick = tick;
+		started = true;
+	}
+
+	/**
+	 * Whether the next pass should begin: passes start at most once every
+	 * maxStaleTicks, so a finished pass waits out the rest of its period.
+	 */
+	public boolean isPassDue(long tick, int maxStaleTicks) {
+		return !started || tick >= passStartTick + maxStaleTicks;
+	}
+
+	public boolean hasNext() {
+		return index < totalColumns;
+	}
+
+	/**
+	 * Returns the chunk key of the next column and advances the cursor.
+	 */
+	public long next() {
+		int chunkX = minChunkX + index % widthChunks;
+		int chunkZ = minChunkZ + index / widthChunks;
+		index++;
+		return ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+	}
+
+	public int remaining() {
+		return totalColumns - index;
+	}
+
+	/**
+	 * Minimum number of columns that must be processed this tick for the
+	 * current pass to finish within maxStaleTicks of its start.
+	 */
+	public int requiredThisTick(long tick, int maxStaleTicks) {
+		long ticksLeft = passStartTick + maxStaleTicks - tick;
+		if (ticksLeft <= 1) return remaining();
+
+		return (int) ((remaining() + ticksLeft - 1) / ticksLeft);
+	}
+}
@@ -0,0 +1,100 @@
+package com.adam.vBedPlates.scan;
+
+/**
+ * The box of the world the scanner currently keeps track of. When the box
+ * moves, only the slabs that became newly visible need scanning; anything
+ * that fell out of it is left to age out instead of forcing a rescan.
+ */
+public class ScanWindow {
+	private boolean placed = false;
+	private int minX, minY, minZ;
+	private int maxX, maxY, maxZ;
+
+	// Boxes exposed by the last move, six ints each; reused so moving never allocates
+	private final int[] exposed = new int[6 * 6];
+	private int exposedCount = 0;
+
+	public boolean isPlaced() {
+		return placed;
+	}
+
+	/**
+	 * Forgets the current box, so the next move places it without reporting any slabs.
+	 */
+	public void reset() {
+		placed = false;
+	}
+
+	public boolean contains(int x, int y, int z) {
+		return placed &&
+				x >= minX && x <= maxX &&
+				y >= minY && y <= maxY &&
+				z >= minZ && z <= maxZ;
+	}
+
+	/**
+	 * Moves the window to the given inclusive box.
+	 *
+	 * @return the number of newly exposed boxes, read with getExposedBoxes().
+	 * Zero when the box did not change, or when it is placed for the first
+	 * time (chunk indexing covers the initial area).
+	 */
+	public int moveTo(int nMinX, int nMinY, int nMinZ, int nMaxX, int nMaxY, int nMaxZ) {
+		exposedCount = 0;
+
+		if (placed && (nMinX != minX || nMinY != minY || nMinZ != minZ ||
+				nMaxX != maxX || nMaxY != maxY || nMaxZ != maxZ)) {
+			// Slabs beyond the old X range, full height and depth
+			addBox(nMinX, nMinY, nMinZ, Math.min(nMaxX, minX - 1), nMaxY, nMaxZ);
+			addBox(Math.max(nMinX, maxX + 1), nMinY, nMinZ, nMaxX, nMaxY, nMaxZ);
+
+			// Within the shared X range, slabs beyond the old Z range
+			int sharedMinX = Math.max(nMinX, minX);
+			int sharedMaxX = Math.min(nMaxX, maxX);
+			addBox(sharedMinX, nMinY, nMinZ, sharedMaxX, nMaxY, Math.min(nMaxZ, minZ - 1));
+			addBox(sharedMinX, nMinY, Math.max(nMinZ, maxZ + 1), sharedMaxX, nMaxY, nMaxZ);
+
+			// Within the shared XZ range, slabs beyond the old Y range
+			int sharedMinZ = Math.max(nMinZ, minZ);
+			int sharedMaxZ = Math.min(nMaxZ, maxZ);
+			addBox(sharedMinX, nMinY, sharedMinZ, sharedMaxX, Math.min(nMaxY, minY - 1), sharedMaxZ);
+			addBox(sharedMinX, Math.max(nMinY, maxY + 1), sharedMinZ, sharedMaxX, nMaxY, sharedMaxZ);
+		}
+
+		minX = nMinX;
+		minY = nMinY;
+		minZ = nMinZ;
+		maxX = nMaxX;
+		maxY = nMaxY;
+		maxZ = nMaxZ;
+		placed = true;
+		return exposedCount;
+	}
+
+	/**
+	 * Boxes exposed by the last move: box i is {minX, minY, minZ, maxX, maxY, maxZ}
+	 * at offset i * 6. Overwritten by the next move.
+	 */
+	public int[] getExposedBoxes() {
+		return exposed;
+	}
+
+	private void addBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		if (minX <= maxX && minY <= maxY && minZ <= maxZ) {
+			int offset = exposedCount++ * 6;
+			exposed[offset] = minX;
+			exposed[offset + 1] = minY;
+			exposed[offset + 2] = minZ;
+			exposed[offset + 3] = maxX;
+			exposed[offset + 4] = maxY;
+			exposed[offset + 5] = maxZ;
+		}
+	}
+
+	public int getMinX() { return minX; }
+	public int getMinY() { return minY; }
+	public int getMinZ() { return minZ; }
+	public int getMaxX() { return maxX; }
+	public int getMaxY() { return maxY; }
+	public int getMaxZ() { return maxZ; }
+}
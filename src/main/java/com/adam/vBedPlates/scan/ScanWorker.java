@@ -0,0 +1,230 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.util.BlockPos;
+
+import com.adam.vBedPlates.vBedPlates;
+import com.adam.vBedPlates.util.LongHashSet;
+import com.adam.vBedPlates.util.TeamDetector;
+import com.adam.vBedPlates.util.TeamDetector.BedTeam;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs bed detection and analysis on a background thread against a
+ * WorldSnapshot. The client thread only captures the snapshot, submits a
+ * job and later picks up the published result.
+ */
+public class ScanWorker {
+
+	// Flood fill buffers are reused per thread; the parallel sweep analyses beds on pool threads
+	private static final ThreadLocal<DefenseFloodFill> FLOOD_FILL = ThreadLocal.withInitial(DefenseFloodFill::new);
+	private static final ThreadLocal<BreachPathFinder> BREACH_FINDER = ThreadLocal.withInitial(BreachPathFinder::new);
+
+	/**
+	 * Work captured on the client thread for one background pass.
+	 */
+	public static class Job {
+		public final int generation;
+		public final WorldSnapshot snapshot = new WorldSnapshot();
+		public final List<Long> chunksToIndex = new ArrayList<>();
+		public final List<BlockPos> bedsToRefresh = new ArrayList<>();
+		public final List<BlockPos> candidates = new ArrayList<>();
+		public final List<BreachPath> breachPaths = new ArrayList<>(); // Worker-owned copies, searched in place
+		public boolean parallel = false;
+
+		// Area chunk indexing is clipped to; whole columns unless clipTo is called
+		public int minX = Integer.MIN_VALUE, minY = 0, minZ = Integer.MIN_VALUE;
+		public int maxX = Integer.MAX_VALUE, maxY = 255, maxZ = Integer.MAX_VALUE;
+
+		public Job(int generation) {
+			this.generation = generation;
+		}
+
+		public void clipTo(ScanWindow window) {
+			if (!window.isPlaced()) return;
+
+			minX = window.getMinX();
+			minY = window.getMinY();
+			minZ = window.getMinZ();
+			maxX = window.getMaxX();
+			maxY = window.getMaxY();
+			maxZ = window.getMaxZ();
+		}
+	}
+
+	/**
+	 * Analysis of a single bed. Team is only set for beds found by indexing.
+	 */
+	public static class BedResult {
+		public final BlockPos footPos;
+		public final BlockPos headPos;
+		public BedTeam team = null;
+		public boolean indexed = false; // Found by chunk indexing rather than as a candidate
+		public final DefenseComposition defense = new DefenseComposition();
+		public final LongHashSet obsidianBlocks = new LongHashSet();
+		public BedNeighbourhood neighbourhood;
+		public boolean fullyEncased;
+
+		public BedResult(BlockPos footPos, BlockPos headPos) {
+			this.footPos = footPos;
+			this.headPos = headPos;
+		}
+	}
+
+	/**
+	 * Everything one background pass found, published back to the client thread.
+	 * If the pass threw, failedJob is set and nothing else is filled in, so the
+	 * client thread can requeue the job's work instead of losing it.
+	 */
+	public static class Result {
+		public final int generation;
+		public final List<BedResult> beds = new ArrayList<>();
+		public final List<BlockPos> removedBeds = new ArrayList<>();
+		public final List<BreachPath> breachPaths = new ArrayList<>(); // The job's paths, now searched
+		public Job failedJob = null;
+
+		public Result(int generation) {
+			this.generation = generation;
+		}
+	}
+
+	private final AtomicReference<Result> published = new AtomicReference<>();
+	private volatile boolean busy = false;
+	private ExecutorService executor = null;
+
+	/**
+	 * True from submit until the job's result has been taken with poll(), so
+	 * a second job can never publish over a result nobody has read yet.
+	 */
+	public boolean isBusy() {
+		return busy;
+	}
+
+	/**
+	 * Queues a job on the worker thread. Callers should check isBusy() first.
+	 */
+	public void submit(Job job) {
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "vBedPlates Scan Worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		busy = true;
+		executor.execute(() -> {
+			// Always publish something: busy is only cleared when a result is polled
+			Result result;
+			try {
+				result = analyze(job);
+			} catch (Throwable e) {
+				vBedPlates.LOGGER.error("Scan worker failed on a job of " + job.chunksToIndex.size() + " chunks", e);
+				result = new Result(job.generation);
+				result.failedJob = job;
+			}
+			published.set(result);
+		});
+	}
+
+	/**
+	 * Takes the published result, or null if nothing new is ready. Taking it
+	 * frees the worker for the next job.
+	 */
+	public Result poll() {
+		Result result = published.getAndSet(null);
+		if (result != null) {
+			busy = false;
+		}
+		return result;
+	}
+
+	/**
+	 * Runs a job against its snapshot. Safe to call from any thread.
+	 */
+	public static Result analyze(Job job) {
+		WorldSnapshot snapshot = job.snapshot;
+		Result result = new Result(job.generation);
+		Set<BlockPos> seen = new HashSet<>();
+
+		// Index whole chunk columns, fanning out over the fork-join pool for large backlogs
+		if (job.parallel && job.chunksToIndex.size() >= ParallelSweep.MIN_COLUMNS) {
+			result.beds.addAll(ParallelSweep.indexColumns(job));
+		} else {
+			for (long key : job.chunksToIndex) {
+				indexChunk(job, key, result.beds);
+			}
+		}
+		for (BedResult bed : result.beds) {
+			seen.add(bed.footPos);
+		}
+
+		// Changed positions that may be freshly placed beds
+		for (BlockPos pos : job.candidates) {
+			int state = snapshot.getStateId(pos.getX(), pos.getY(), pos.getZ());
+			if (state >> 4 == BedAnalyzer.BED_ID && (state & 8) == 0 && seen.add(pos)) {
+				result.beds.add(analyzeBed(snapshot, pos, state & 15, true));
+			}
+		}
+
+		// Known beds whose surroundings changed
+		for (BlockPos footPos : job.bedsToRefresh) {
+			int state = snapshot.getStateId(footPos.getX(), footPos.getY(), footPos.getZ());
+			if (state >> 4 != BedAnalyzer.BED_ID) {
+				result.removedBeds.add(footPos);
+			} else if (seen.add(footPos)) {
+				result.beds.add(analyzeBed(snapshot, footPos, state & 15, false));
+			}
+		}
+
+		// Stale breach paths, read from the snapshot since the copies hold no break times
+		BreachPathFinder finder = BREACH_FINDER.get();
+		for (BreachPath path : job.breachPaths) {
+			finder.compute(path, snapshot);
+			result.breachPaths.add(path);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Finds and analyses every bed whose foot lies in one captured chunk column,
+	 * within the job's bounds.
+	 */
+	static void indexChunk(Job job, long chunkKey, List<BedResult> out) {
+		WorldSnapshot snapshot = job.snapshot;
+		ChunkSnapshot chunk = snapshot.getChunk((int) chunkKey, (int) (chunkKey >> 32));
+		if (chunk == null) return;
+
+		int baseX = chunk.chunkX << 4;
+		int baseZ = chunk.chunkZ << 4;
+		SectionScanner.scanSnapshot(chunk,
+				Math.max(job.minX, baseX), job.minY, Math.max(job.minZ, baseZ),
+				Math.min(job.maxX, baseX + 15), job.maxY, Math.min(job.maxZ, baseZ + 15),
+				BedAnalyzer.BED_FILTER, (x, y, z, blockId, meta) -> {
+					if ((meta & 8) == 0) {
+						BedResult bed = analyzeBed(snapshot, new BlockPos(x, y, z), meta, true);
+						bed.indexed = true;
+						out.add(bed);
+					}
+				});
+	}
+
+	private static BedResult analyzeBed(BlockView view, BlockPos footPos, int meta, boolean detectTeam) {
+		BedResult bed = new BedResult(footPos, BedAnalyzer.getHeadPos(footPos, meta));
+		int[] colorCounts = new int[16];
+		bed.neighbourhood = new BedNeighbourhood(footPos, bed.headPos);
+		BedAnalyzer.analyze(view, bed.neighbourhood, FLOOD_FILL.get(), bed.defense, bed.obsidianBlocks, colorCounts);
+		bed.fullyEncased = bed.neighbourhood.isFullyEncased();
+		if (detectTeam) {
+			bed.team = TeamDetector.teamFromColorCounts(colorCounts);
+		}
+		return bed;
+	}
+}
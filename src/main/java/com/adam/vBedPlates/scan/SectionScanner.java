@@ -0,0 +1,150 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.block.Block;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * Bulk block scanner that reads chunk section arrays directly instead of
+ * calling World.getBlockState once per position.
+ *
+ * Unloaded chunks and null/empty sections are skipped entirely, and the
+ * inner loops work on plain ints so no BlockPos is allocated per block.
+ */
+public class SectionScanner {
+
+	/**
+	 * Receives every block whose id passes the scan filter.
+	 */
+	public interface BlockVisitor {
+		void visit(int x, int y, int z, int blockId, int meta);
+	}
+
+	private static final int MAX_BLOCK_ID = 4096;
+
+	/**
+	 * Builds a block id filter for use with the scan methods.
+	 */
+	public static boolean[] filterOf(Block... blocks) {
+		boolean[] filter = new boolean[MAX_BLOCK_ID];
+		for (Block block : blocks) {
+			filter[Block.getIdFromBlock(block)] = true;
+		}
+		return filter;
+	}
+
+	/**
+	 * Scans an inclusive world-space box, visiting every block matched by the filter.
+	 *
+	 * @return the number of chunk sections that were actually read
+	 */
+	public static int scanVolume(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+								 boolean[] filter, BlockVisitor visitor) {
+		minY = Math.max(minY, 0);
+		maxY = Math.min(maxY, 255);
+		if (minY > maxY) return 0;
+
+		int sections = 0;
+		for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+			for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+				Chunk chunk = getLoadedChunk(world, cx, cz);
+				if (chunk == null) continue;
+
+				sections += scanChunk(chunk, minX, minY, minZ, maxX, maxY, maxZ, filter, visitor);
+			}
+		}
+		return sections;
+	}
+
+	/**
+	 * Scans the part of a single chunk column that falls inside the given box.
+	 *
+	 * @return the number of chunk sections that were actually read
+	 */
+	public static int scanChunk(Chunk chunk, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+								boolean[] filter, BlockVisitor visitor) {
+		ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+		int sections = 0;
+
+		for (int sy = Math.max(minY, 0) >> 4; sy <= Math.min(maxY, 255) >> 4; sy++) {
+			ExtendedBlockStorage section = storage[sy];
+			if (section == null || section.isEmpty()) continue;
+
+			if (scanSection(section.getData(), chunk.xPosition, sy, chunk.zPosition,
+					minX, minY, minZ, maxX, maxY, maxZ, filter, visitor)) {
+				sections++;
+			}
+		}
+		return sections;
+	}
+
+	/**
+	 * Scans a copied chunk column (see ChunkSnapshot) the same way as a live chunk.
+	 *
+	 * @return the number of chunk sections that were actually read
+	 */
+	public static int scanSnapshot(ChunkSnapshot snapshot, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+								   boolean[] filter, BlockVisitor visitor) {
+		int sections = 0;
+
+		for (int sy = Math.max(minY, 0) >> 4; sy <= Math.min(maxY, 255) >> 4; sy++) {
+			char[] data = snapshot.getSection(sy);
+			if (data == null) continue;
+
+			if (scanSection(data, snapshot.chunkX, sy, snapshot.chunkZ,
+					minX, minY, minZ, maxX, maxY, maxZ, filter, visitor)) {
+				sections++;
+			}
+		}
+		return sections;
+	}
+
+	/**
+	 * Scans one 16x16x16 section data array, clipped to the inclusive world-space box.
+	 *
+	 * @return false if the box does not overlap the section at all
+	 */
+	private static boolean scanSection(char[] data, int chunkX, int sectionY, int chunkZ,
+									   int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+									   boolean[] filter, BlockVisitor visitor) {
+		int baseX = chunkX << 4;
+		int baseY = sectionY << 4;
+		int baseZ = chunkZ << 4;
+
+		// Clip the box to this section (local 0-15 coordinates)
+		int x0 = Math.max(minX - baseX, 0);
+		int x1 = Math.min(maxX - baseX, 15);
+		int y0 = Math.max(minY - baseY, 0);
+		int y1 = Math.min(maxY - baseY, 15);
+		int z0 = Math.max(minZ - baseZ, 0);
+		int z1 = Math.min(maxZ - baseZ, 15);
+		if (x0 > x1 || y0 > y1 || z0 > z1) return false;
+
+		for (int ly = y0; ly <= y1; ly++) {
+			for (int lz = z0; lz <= z1; lz++) {
+				int row = ly << 8 | lz << 4;
+				for (int lx = x0; lx <= x1; lx++) {
+					char state = data[row | lx];
+					int id = state >> 4;
+					if (filter[id]) {
+						visitor.visit(baseX + lx, baseY + ly, baseZ + lz, id, state & 15);
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the chunk at the given chunk coordinates, or null if it has not
+	 * been received/loaded yet (the client returns an EmptyChunk in that case).
+	 */
+	public static Chunk getLoadedChunk(World world, int chunkX, int chunkZ) {
+		if (!world.getChunkProvider().chunkExists(chunkX, chunkZ)) return null;
+
+		Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+		if (chunk == null || chunk.isEmpty()) return null;
+		return chunk;
+	}
+}
@@ -0,0 +1,50 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.util.BlockPos;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Predicts where the remaining beds of a map are from one known bed.
+ *
+ * Bedwars maps are built around the origin with rotational or mirror
+ * symmetry, so the other beds sit at the images of the first one under
+ * those symmetries. Which one a map uses is not known, so every candidate
+ * is returned; the caller probes a small box around each and keeps whatever
+ * beds turn up.
+ */
+public class SymmetryPredictor {
+
+	/**
+	 * Returns the candidate foot positions of the other beds. Positions are
+	 * approximate (mirrors may be off by one and swap foot and head), so
+	 * probe a box around each.
+	 */
+	public static List<BlockPos> predict(BlockPos footPos, int teamCount) {
+		int x = footPos.getX();
+		int y = footPos.getY();
+		int z = footPos.getZ();
+
+		Set<BlockPos> candidates = new LinkedHashSet<>();
+
+		// Half turn and the two axis mirrors (every layout has at least one of these)
+		candidates.add(new BlockPos(-x, y, -z));
+		candidates.add(new BlockPos(-x, y, z));
+		candidates.add(new BlockPos(x, y, -z));
+
+		if (teamCount > 2) {
+			// Quarter turns and the diagonal mirrors
+			candidates.add(new BlockPos(-z, y, x));
+			candidates.add(new BlockPos(z, y, -x));
+			candidates.add(new BlockPos(z, y, x));
+			candidates.add(new BlockPos(-z, y, -x));
+		}
+
+		// A bed on a symmetry axis maps onto itself
+		candidates.remove(footPos);
+		return new ArrayList<>(candidates);
+	}
+}
@@ -0,0 +1,33 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+/**
+ * BlockView over the live world. Reads section arrays directly, so it must
+ * only be used from the client thread.
+ */
+public class WorldBlockView implements BlockView {
+	private final World world;
+
+	public WorldBlockView(World world) {
+		this.world = world;
+	}
+
+	public World getWorld() {
+		return world;
+	}
+
+	@Override
+	public int getStateId(int x, int y, int z) {
+		if (y < 0 || y > 255) return 0;
+
+		// Unloaded positions resolve to an EmptyChunk with no sections
+		Chunk chunk = world.getChunkFromChunkCoords(x >> 4, z >> 4);
+		ExtendedBlockStorage section = chunk.getBlockStorageArray()[y >> 4];
+		if (section == null) return 0;
+
+		return section.getData()[(y & 15) << 8 | (z & 15) << 4 | (x & 15)];
+	}
+}
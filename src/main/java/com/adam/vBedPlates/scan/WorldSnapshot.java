@@ -0,0 +1,56 @@
+package com.adam.vBedPlates.scan;
+
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of copied chunk columns that can be analysed off the client thread.
+ * Chunks are captured on the client thread and the snapshot is read-only afterwards.
+ */
+public class WorldSnapshot implements BlockView {
+	private final Map<Long, ChunkSnapshot> chunks = new HashMap<>();
+
+	/**
+	 * Copies every loaded chunk column overlapping the block-space XZ area,
+	 * skipping columns that were already captured.
+	 */
+	public void captureArea(World world, int minX, int minZ, int maxX, int maxZ) {
+		for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+			for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+				captureChunk(world, cx, cz);
+			}
+		}
+	}
+
+	/**
+	 * Copies a single chunk column if it is loaded and not captured yet.
+	 */
+	public void captureChunk(World world, int chunkX, int chunkZ) {
+		long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+		if (chunks.containsKey(key)) return;
+
+		Chunk chunk = SectionScanner.getLoadedChunk(world, chunkX, chunkZ);
+		if (chunk != null) {
+			chunks.put(key, ChunkSnapshot.capture(chunk));
+		}
+	}
+
+	public ChunkSnapshot getChunk(int chunkX, int chunkZ) {
+		return chunks.get(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+	}
+
+	public Collection<ChunkSnapshot> getChunks() {
+		return chunks.values();
+	}
+
+	@Override
+	public int getStateId(int x, int y, int z) {
+		ChunkSnapshot chunk = getChunk(x >> 4, z >> 4);
+		return chunk == null ? 0 : chunk.getStateId(x, y, z);
+	}
+}
@@ -0,0 +1,117 @@
+package com.adam.vBedPlates.util;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes one thread allocates between begin() and end(), using
+ * HotSpot's per-thread allocation counter. Used to check that steady-state
+ * frames of a hot path allocate nothing.
+ *
+ * The probe is idle until start() arms it for a number of samples, so an
+ * unarmed begin()/end() pair costs two field reads. Reading the counter can
+ * allocate a little itself on some JVMs; that overhead is measured when the
+ * probe is armed and subtracted from every sample.
+ */
+public class AllocationProbe {
+
+	private static final com.sun.management.ThreadMXBean THREADS = lookupThreadBean();
+
+	private int remaining = 0;
+	private long threadId;
+	private long overhead;
+	private long startBytes;
+
+	private int samples;
+	private int allocatingSamples;
+	private long totalBytes;
+	private long maxBytes;
+
+	/**
+	 * Whether this JVM can report per-thread allocation at all.
+	 */
+	public static boolean isSupported() {
+		return THREADS != null;
+	}
+
+	/**
+	 * Arms the probe for the given number of samples, clearing the last result.
+	 */
+	public void start(int sampleCount) {
+		if (!isSupported()) return;
+
+		samples = 0;
+		allocatingSamples = 0;
+		totalBytes = 0;
+		maxBytes = 0;
+		overhead = -1;
+		remaining = sampleCount;
+	}
+
+	public boolean isRunning() {
+		return remaining > 0;
+	}
+
+	public void begin() {
+		if (remaining <= 0) return;
+
+		// Calibrate on the measured thread the first time round
+		if (overhead < 0) {
+			threadId = Thread.currentThread().getId();
+			overhead = Long.MAX_VALUE;
+			for (int i = 0; i < 8; i++) {
+				long before = THREADS.getThreadAllocatedBytes(threadId);
+				overhead = Math.min(overhead, THREADS.getThreadAllocatedBytes(threadId) - before);
+			}
+		}
+		startBytes = THREADS.getThreadAllocatedBytes(threadId);
+	}
+
+	/**
+	 * Ends a sample.
+	 *
+	 * @return true if this was the last sample and the result is ready
+	 */
+	public boolean end() {
+		if (remaining <= 0) return false;
+
+		long bytes = Math.max(0, THREADS.getThreadAllocatedBytes(threadId) - startBytes - overhead);
+		samples++;
+		totalBytes += bytes;
+		maxBytes = Math.max(maxBytes, bytes);
+		if (bytes > 0) allocatingSamples++;
+		return --remaining == 0;
+	}
+
+	public int getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Samples that allocated anything at all.
+	 */
+	public int getAllocatingSamples() {
+		return allocatingSamples;
+	}
+
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	private static com.sun.management.ThreadMXBean lookupThreadBean() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (!threads.isThreadAllocatedMemorySupported()) return null;
+			threads.setThreadAllocatedMemoryEnabled(true);
+			return threads;
+		} catch (LinkageError | UnsupportedOperationException e) {
+			return null; // Not a HotSpot JVM
+		}
+	}
+}
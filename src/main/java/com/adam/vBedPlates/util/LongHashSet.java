@@ -0,0 +1,179 @@
+package com.adam.vBedPlates.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of primitive longs, meant for PackedPos and
+ * chunk coordinate keys.
+ *
+ * Nothing is boxed, and clear() keeps the backing array, so a set that is
+ * rebuilt every tick stops allocating once it has grown to its working size.
+ * Iterate without an iterator object:
+ *
+ * <pre>
+ * for (int slot = set.firstSlot(); slot >= 0; slot = set.nextSlot(slot)) {
+ *     long key = set.keyAt(slot);
+ * }
+ * </pre>
+ *
+ * To drain the set while iterating, remove each key as it is visited and
+ * continue with nextSlot(slot - 1): removal may shift a later key back into
+ * the current slot.
+ *
+ * Long.MIN_VALUE marks free slots. As a PackedPos it lies outside the world
+ * border, and as a chunk key outside the world, so it is never a real key.
+ */
+public class LongHashSet {
+
+	static final long EMPTY = Long.MIN_VALUE;
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private int size = 0;
+	private int mask;
+
+	public LongHashSet() {
+		this(MIN_CAPACITY);
+	}
+
+	public LongHashSet(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity * 3 < expectedSize * 4) capacity <<= 1;
+		allocate(capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(long key) {
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY) {
+			if (keys[slot] == key) return true;
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * @return true if the key was not present yet
+	 */
+	public boolean add(long key) {
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY) {
+			if (keys[slot] == key) return false;
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		if (++size * 4 > keys.length * 3) {
+			rehash(keys.length << 1);
+		}
+		return true;
+	}
+
+	public void addAll(LongHashSet other) {
+		for (int slot = other.firstSlot(); slot >= 0; slot = other.nextSlot(slot)) {
+			add(other.keys[slot]);
+		}
+	}
+
+	/**
+	 * @return true if the key was present
+	 */
+	public boolean remove(long key) {
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY) {
+			if (keys[slot] == key) {
+				deleteSlot(slot);
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Empties the set, keeping the backing array.
+	 */
+	public void clear() {
+		if (size == 0) return;
+
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	/**
+	 * @return the first occupied slot, or -1 if the set is empty
+	 */
+	public int firstSlot() {
+		return nextSlot(-1);
+	}
+
+	/**
+	 * @return the next occupied slot after the given one, or -1 at the end
+	 */
+	public int nextSlot(int slot) {
+		for (int i = slot + 1; i < keys.length; i++) {
+			if (keys[i] != EMPTY) return i;
+		}
+		return -1;
+	}
+
+	public long keyAt(int slot) {
+		return keys[slot];
+	}
+
+	/**
+	 * Removes a slot and shifts later entries of the same probe run back,
+	 * so lookups never need tombstones.
+	 */
+	private void deleteSlot(int slot) {
+		int gap = slot;
+		int next = (gap + 1) & mask;
+		while (keys[next] != EMPTY) {
+			int home = hash(keys[next]) & mask;
+			// Move the entry into the gap unless its home lies cyclically in (gap, next]
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+
+		keys[gap] = EMPTY;
+		size--;
+	}
+
+	private void rehash(int capacity) {
+		long[] old = keys;
+		allocate(capacity);
+		for (long key : old) {
+			if (key != EMPTY) {
+				int slot = hash(key) & mask;
+				while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+				keys[slot] = key;
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Spreads packed positions, whose low bits are all Z, over the table.
+	 */
+	static int hash(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+}
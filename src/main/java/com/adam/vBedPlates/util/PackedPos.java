@@ -0,0 +1,48 @@
+package com.adam.vBedPlates.util;
+
+import net.minecraft.util.BlockPos;
+
+/**
+ * Block positions packed into a long, using the same layout as
+ * BlockPos.toLong(): 26 bits X, 12 bits Y, 26 bits Z.
+ *
+ * Lets tracking sets store positions as primitives and read coordinates
+ * back without allocating a BlockPos.
+ */
+public class PackedPos {
+
+	private static final int X_BITS = 26;
+	private static final int Y_BITS = 12;
+	private static final int Z_BITS = 26;
+	private static final int Y_SHIFT = Z_BITS;
+	private static final int X_SHIFT = Y_SHIFT + Y_BITS;
+	private static final long X_MASK = (1L << X_BITS) - 1L;
+	private static final long Y_MASK = (1L << Y_BITS) - 1L;
+	private static final long Z_MASK = (1L << Z_BITS) - 1L;
+
+	public static long pack(int x, int y, int z) {
+		return ((long) x & X_MASK) << X_SHIFT | ((long) y & Y_MASK) << Y_SHIFT | ((long) z & Z_MASK);
+	}
+
+	public static long pack(BlockPos pos) {
+		return pack(pos.getX(), pos.getY(), pos.getZ());
+	}
+
+	// Shift the field up to the sign bit and back down to sign-extend it
+
+	public static int getX(long packed) {
+		return (int) (packed << (64 - X_SHIFT - X_BITS) >> (64 - X_BITS));
+	}
+
+	public static int getY(long packed) {
+		return (int) (packed << (64 - Y_SHIFT - Y_BITS) >> (64 - Y_BITS));
+	}
+
+	public static int getZ(long packed) {
+		return (int) (packed << (64 - Z_BITS) >> (64 - Z_BITS));
+	}
+
+	public static BlockPos toBlockPos(long packed) {
+		return new BlockPos(getX(packed), getY(packed), getZ(packed));
+	}
+}
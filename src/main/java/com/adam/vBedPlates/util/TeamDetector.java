@@ -2,11 +2,6 @@ package com.adam.vBedPlates.util;
 
 import net.minecraft.block.Block;
 import net.minecraft.init.Blocks;
-import net.minecraft.util.BlockPos;
-import net.minecraft.world.World;
-
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Detects bed team colors by analyzing surrounding wool/terracotta blocks.
@@ -16,24 +11,26 @@ import java.util.Map;
 public class TeamDetector {
 
 	public enum BedTeam {
-		RED(14, "§c", "Red"),
-		BLUE(11, "§9", "Blue"),
-		GREEN(13, "§a", "Green"),
-		YELLOW(4, "§e", "Yellow"),
-		AQUA(9, "§b", "Aqua"),
-		WHITE(0, "§f", "White"),
-		PINK(6, "§d", "Pink"),
-		GRAY(7, "§7", "Gray"),
-		UNKNOWN(-1, "§7", "Unknown");
+		RED(14, "§c", "Red", 0xFF5555),
+		BLUE(11, "§9", "Blue", 0x5555FF),
+		GREEN(13, "§a", "Green", 0x55FF55),
+		YELLOW(4, "§e", "Yellow", 0xFFFF55),
+		AQUA(9, "§b", "Aqua", 0x55FFFF),
+		WHITE(0, "§f", "White", 0xFFFFFF),
+		PINK(6, "§d", "Pink", 0xFF55FF),
+		GRAY(7, "§7", "Gray", 0xAAAAAA),
+		UNKNOWN(-1, "§7", "Unknown", 0xAAAAAA);
 
 		public final int woolMeta;
 		public final String colorCode;
 		public final String displayName;
+		public final int rgb; // Same colour as the chat code, for rendering
 
-		BedTeam(int woolMeta, String colorCode, String displayName) {
+		BedTeam(int woolMeta, String colorCode, String displayName, int rgb) {
 			this.woolMeta = woolMeta;
 			this.colorCode = colorCode;
 			this.displayName = displayName;
+			this.rgb = rgb;
 		}
 
 		public static BedTeam fromWoolMeta(int meta) {
@@ -44,46 +41,31 @@ public class TeamDetector {
 		}
 	}
 
-	private static final int SCAN_RADIUS = 8; // Area around bed to check for team blocks
+	public static final int SCAN_RADIUS = 8; // Area around bed to check for team blocks
+	public static final int SCAN_MIN_DY = -2; // Focus on bed level and above
+	public static final int SCAN_MAX_DY = 4;
+
+	private static final int WOOL_ID = Block.getIdFromBlock(Blocks.wool);
+	private static final int STAINED_GLASS_ID = Block.getIdFromBlock(Blocks.stained_glass);
+	private static final int STAINED_CLAY_ID = Block.getIdFromBlock(Blocks.stained_hardened_clay);
 
 	/**
-	 * Detects the team of a bed by analyzing surrounding colored blocks.
-	 *
-	 * @param world The world
-	 * @param bedPos The bed position (foot block)
-	 * @return The detected team
+	 * Checks whether a block id carries a team color in its metadata
 	 */
-	public static BedTeam detectBedTeam(World world, BlockPos bedPos) {
-		Map<Integer, Integer> colorCounts = new HashMap<>();
-
-		// Scan area around the bed
-		for (int x = -SCAN_RADIUS; x <= SCAN_RADIUS; x++) {
-			for (int y = -2; y <= 4; y++) { // Focus on bed level and above
-				for (int z = -SCAN_RADIUS; z <= SCAN_RADIUS; z++) {
-					BlockPos checkPos = bedPos.add(x, y, z);
-					Block block = world.getBlockState(checkPos).getBlock();
-
-					// Check for colored blocks (wool and stained glass are most common)
-					if (block == Blocks.wool || block == Blocks.stained_glass ||
-							block == Blocks.stained_hardened_clay) {
-
-						int meta = world.getBlockState(checkPos).getBlock()
-								.getMetaFromState(world.getBlockState(checkPos));
-
-						// Increment count for this color
-						colorCounts.put(meta, colorCounts.getOrDefault(meta, 0) + 1);
-					}
-				}
-			}
-		}
+	public static boolean isColoredBlockId(int id) {
+		return id == WOOL_ID || id == STAINED_GLASS_ID || id == STAINED_CLAY_ID;
+	}
 
+	/**
+	 * Picks the team from a histogram of colored block counts indexed by metadata.
+	 */
+	public static BedTeam teamFromColorCounts(int[] colorCounts) {
 		// Find the most common color (excluding white/gray as they're generic)
 		int maxCount = 0;
 		int dominantColor = -1;
 
-		for (Map.Entry<Integer, Integer> entry : colorCounts.entrySet()) {
-			int color = entry.getKey();
-			int count = entry.getValue();
+		for (int color = 0; color < colorCounts.length; color++) {
+			int count = colorCounts[color];
 
 			// Prioritize team colors (not white/gray)
 			if (color != 0 && color != 7 && color != 8 && count > maxCount) {
@@ -98,9 +80,9 @@ public class TeamDetector {
 		}
 
 		// Fallback: check white/gray if no other color found
-		for (Map.Entry<Integer, Integer> entry : colorCounts.entrySet()) {
-			if (entry.getValue() > maxCount) {
-				return BedTeam.fromWoolMeta(entry.getKey());
+		for (int color = 0; color < colorCounts.length; color++) {
+			if (colorCounts[color] > maxCount) {
+				return BedTeam.fromWoolMeta(color);
 			}
 		}
 
@@ -4,6 +4,8 @@ import net.minecraftforge.client.ClientCommandHandler;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.common.MinecraftForge;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import com.adam.vBedPlates.events.BedScanner;
 import com.adam.vBedPlates.events.BedplateRender;
@@ -17,6 +19,7 @@ import com.adam.vBedPlates.util.TeamDetector;
 public class vBedPlates {
 	public static final String MODID = "vbedplates";
 	public static final String VERSION = "0.1";
+	public static final Logger LOGGER = LogManager.getLogger(MODID);
 
 
 	@Mod.EventHandler
@@ -25,7 +28,7 @@ public class vBedPlates {
 		BedScanner scanner = new BedScanner();
 		MinecraftForge.EVENT_BUS.register(scanner);
 		ClientCommandHandler.instance.registerCommand(new BedplateCommand());
-		MinecraftForge.EVENT_BUS.register(new BedplateRender(scanner));
+		MinecraftForge.EVENT_BUS.register(new BedplateRender());
 		System.out.println("BedScanner and BedDefenseRenderer online");
 	}
 
@@ -0,0 +1,161 @@
+package com.adam.vBedPlates.events;
+
+import net.minecraft.block.Block;
+import net.minecraft.client.renderer.WorldRenderer;
+import net.minecraft.client.renderer.culling.ClippingHelper;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.BlockPos;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.lwjgl.opengl.GL11;
+
+import com.adam.vBedPlates.commands.BedplateCommand;
+import com.adam.vBedPlates.scan.BreachPath;
+import com.adam.vBedPlates.scan.DefenseComposition;
+import com.adam.vBedPlates.util.AllocationProbe;
+import com.adam.vBedPlates.util.PackedPos;
+import com.adam.vBedPlates.util.TeamDetector.BedTeam;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the GL-free part of a steady-state render frame allocates
+ * nothing. Runs the renderer's own per-frame work: billboard selection with
+ * the icon strip lookup, outline and LOD billboard vertices into a
+ * WorldRenderer, and the obsidian ESP staleness check and group culling.
+ */
+public class RenderAllocationTest {
+
+	private static final int BEDS = 12;
+	private static final int WARMUP_FRAMES = 20000; // Enough for the JIT to settle
+	private static final int MEASURED_FRAMES = 5000;
+	private static final double CAM_X = 0.5, CAM_Y = 66.0, CAM_Z = 0.5;
+	private static final float VIEW_YAW = 30.0F, VIEW_PITCH = 10.0F;
+
+	@BeforeClass
+	public static void bootstrap() {
+		Bootstrap.register(); // Block registry for the defense catalogue
+	}
+
+	@Test
+	public void steadyStateFrameDoesNotAllocate() {
+		Assume.assumeTrue("needs the per-thread allocation counter", AllocationProbe.isSupported());
+
+		TrackingSnapshot state = buildSnapshot();
+		Frustum frustum = new Frustum(openClippingHelper());
+		BillboardIconCache icons = new BillboardIconCache(BedplateRender.ITEM_SCALE);
+		BedplateRender renderer = new BedplateRender(frustum, icons);
+		ObsidianEspCache obsidianEsp = new ObsidianEspCache();
+		WorldRenderer lines = new WorldRenderer(0x40000);
+		WorldRenderer quads = new WorldRenderer(0x40000);
+
+		// First frame fills every cache, as it would in game; strips themselves need GL
+		for (int i = 0; i < state.beds.size(); i++) {
+			int mask = state.beds.get(i).defenseMask;
+			if (icons.slotOf(mask) < 0) {
+				icons.claimSlot(mask);
+			}
+		}
+		obsidianEsp.layOut(state, CAM_X, CAM_Y, CAM_Z, BedplateCommand.Config.obsidianRenderDistance);
+
+		long checksum = 0;
+		for (int i = 0; i < WARMUP_FRAMES; i++) {
+			checksum += frame(renderer, obsidianEsp, frustum, lines, quads, state);
+		}
+
+		AllocationProbe probe = new AllocationProbe();
+		probe.start(1);
+		probe.begin();
+		for (int i = 0; i < MEASURED_FRAMES; i++) {
+			checksum += frame(renderer, obsidianEsp, frustum, lines, quads, state);
+		}
+		probe.end();
+
+		assertTrue("frames did no work", checksum != 0);
+		assertEquals("bytes allocated over " + MEASURED_FRAMES + " frames", 0, probe.getTotalBytes());
+	}
+
+	/**
+	 * Everything renderFrame does before it issues GL calls, folded into a
+	 * checksum so none of it can be optimised away.
+	 */
+	private static long frame(BedplateRender renderer, ObsidianEspCache obsidianEsp, Frustum frustum,
+							  WorldRenderer lines, WorldRenderer quads, TrackingSnapshot state) {
+		long checksum = 0;
+
+		lines.begin(GL11.GL_LINES, DefaultVertexFormats.POSITION_COLOR);
+		checksum += renderer.addBedOutlines(lines, state, CAM_X, CAM_Y, CAM_Z);
+		lines.finishDrawing();
+		checksum += lines.getVertexCount();
+		lines.reset();
+
+		if (obsidianEsp.isOutdated(state, CAM_X, CAM_Y, CAM_Z, BedplateCommand.Config.obsidianRenderDistance, false)) {
+			checksum++;
+		}
+		checksum += obsidianEsp.cullGroups(frustum);
+
+		checksum += renderer.selectBillboards(state, CAM_X, CAM_Y, CAM_Z);
+		quads.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+		checksum += renderer.addLodBillboards(quads, VIEW_YAW, VIEW_PITCH);
+		quads.finishDrawing();
+		checksum += quads.getVertexCount();
+		quads.reset();
+		return checksum;
+	}
+
+	/**
+	 * Beds in a ring around the camera, from icon range out to team chips,
+	 * with a different defense mix each, and an obsidian wall by the first.
+	 */
+	private static TrackingSnapshot buildSnapshot() {
+		List<TrackingSnapshot.Bed> beds = new ArrayList<>();
+		for (int i = 0; i < BEDS; i++) {
+			double angle = Math.PI * 2 * i / BEDS;
+			double radius = 10 + 10 * i;
+			BlockPos foot = new BlockPos((int) (Math.cos(angle) * radius), 64, (int) (Math.sin(angle) * radius));
+			BlockPos head = foot.east();
+
+			DefenseComposition defense = new DefenseComposition();
+			defense.beginUpdate();
+			for (int type = 0; type < DefenseComposition.TYPES; type++) {
+				if ((i + type) % 3 != 0) {
+					defense.add(Block.getIdFromBlock(DefenseComposition.getBlock(type)), 1 + type % 2);
+				}
+			}
+			defense.commit();
+
+			BedTeam team = BedTeam.values()[i % (BedTeam.values().length - 1)];
+			beds.add(new TrackingSnapshot.Bed(foot, head, team, defense, false, new BreachPath(foot, head),
+					new BedRenderGeometry(foot, head, defense.getMask())));
+		}
+
+		long[] obsidian = new long[16 * 4];
+		for (int x = 0; x < 16; x++) {
+			for (int y = 0; y < 4; y++) {
+				obsidian[x * 4 + y] = PackedPos.pack(5 + x, 64 + y, 3);
+			}
+		}
+		return new TrackingSnapshot(1, beds, obsidian, 1);
+	}
+
+	/**
+	 * Clipping planes that accept every box, so only the distance limits cull.
+	 */
+	private static ClippingHelper openClippingHelper() {
+		ClippingHelper helper = new ClippingHelper();
+		for (float[] plane : helper.frustum) {
+			plane[0] = 0.0F;
+			plane[1] = 0.0F;
+			plane[2] = 0.0F;
+			plane[3] = 1.0F;
+		}
+		return helper;
+	}
+}